@@ -0,0 +1,22 @@
+package org.travel.cardcostapi.benchmarks;
+
+import java.lang.reflect.Field;
+
+/**
+ * Sets @Autowired fields when wiring services by hand, outside of a Spring context.
+ */
+final class Fields {
+    private Fields() {
+    }
+
+    static <T> T set(T target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + target.getClass().getSimpleName() + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.travel.cardcostapi.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.travel.cardcostapi.clients.BinlistResponseReader;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.responses.PaymentCardCostResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON mapping on the payment path: reading a binlist response, fully bound to {@link CardInfoResponse} or
+ * streamed by the {@link BinlistResponseReader} of the client, and writing the payment card cost response,
+ * with an ObjectMapper configured like the one Spring Boot provides. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    static final byte[] CARD_INFO = """
+            {"number":{"length":16,"luhn":true},"scheme":"visa","type":"debit","brand":"Visa/Dankort","prepaid":false,
+             "country":{"numeric":"208","alpha2":"DK","name":"Denmark","emoji":"\\uD83C\\uDDE9\\uD83C\\uDDF0","currency":"DKK","latitude":56,"longitude":10},
+             "bank":{"name":"Jyske Bank","url":"www.jyskebank.dk","phone":"+4589893300","city":"Hjørring"}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private BinlistResponseReader binlistResponseReader;
+    private PaymentCardCostResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        binlistResponseReader = new BinlistResponseReader(objectMapper.getFactory());
+        response = new PaymentCardCostResponse("DK", 10.5);
+    }
+
+    @Benchmark
+    public CardInfoResponse readCardInfoResponse() throws IOException {
+        return objectMapper.readValue(CARD_INFO, CardInfoResponse.class);
+    }
+
+    @Benchmark
+    public CardInfoResponse streamCardInfoResponse() throws IOException {
+        return binlistResponseReader.read(CARD_INFO);
+    }
+
+    @Benchmark
+    public byte[] writePaymentCardCostResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,131 @@
+package org.travel.cardcostapi.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.travel.cardcostapi.caches.BinCountryCache;
+import org.travel.cardcostapi.caches.BinCountryStore;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.clients.BinlistClient;
+import org.travel.cardcostapi.clients.Bulkhead;
+import org.travel.cardcostapi.clients.CircuitBreaker;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.clients.ThrottledBinLookupProvider;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.configs.BinRangeProperties;
+import org.travel.cardcostapi.configs.BinlistProperties;
+import org.travel.cardcostapi.configs.BulkheadProperties;
+import org.travel.cardcostapi.configs.CircuitBreakerProperties;
+import org.travel.cardcostapi.configs.RateLimitProperties;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
+import org.travel.cardcostapi.metrics.PhaseTimers;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.services.BinInfoTable;
+import org.travel.cardcostapi.services.BinLookupService;
+import org.travel.cardcostapi.services.BinRangeDatabase;
+import org.travel.cardcostapi.services.CardCostService;
+import org.travel.cardcostapi.utils.SingleFlight;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CardCostService.getPaymentCardCost wired by hand against a binlist client answering from memory.
+ * 'cached' measures a BIN cache hit, 'uncached' the whole miss path: coalescing, circuit breaker, rate limiter
+ * and the (stubbed) binlist call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentCardCostBenchmark {
+    @Param({"cached", "uncached"})
+    public String binCache;
+
+    private CardCostService cardCostService;
+    private PaymentCardCostRequest request;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        BinCacheProperties binCacheProperties = new BinCacheProperties();
+        if ("uncached".equals(binCache)) {
+            binCacheProperties.setTtl(Duration.ZERO);
+            binCacheProperties.setStaleTtl(Duration.ZERO);
+        }
+        RateLimitProperties rateLimitProperties = new RateLimitProperties();
+        rateLimitProperties.setRequestsPerMinute(Integer.MAX_VALUE);
+        rateLimitProperties.setBurst(Integer.MAX_VALUE);
+
+        BinRangeDatabase binRangeDatabase = Fields.set(new BinRangeDatabase(), "binRangeProperties", new BinRangeProperties());
+        CircuitBreakerProperties circuitBreakerProperties = new CircuitBreakerProperties();
+        PhaseTimers phaseTimers = new PhaseTimers(meterRegistry);
+
+        BinLookupService binLookupService = new BinLookupService();
+        //throttled like binlist in the router, waiting for a permit on a virtual thread
+        Fields.set(binLookupService, "binLookupProvider", new ThrottledBinLookupProvider(new StubBinlistClient("US"),
+                new RateLimiter(rateLimitProperties), new Bulkhead(new BulkheadProperties()), Executors.newVirtualThreadPerTaskExecutor()));
+        Fields.set(binLookupService, "binCountryCache", new BinCountryCache(binCacheProperties, meterRegistry));
+        Fields.set(binLookupService, "binRangeDatabase", binRangeDatabase);
+        Fields.set(binLookupService, "binCountryStore", new BinCountryStore());
+        Fields.set(binLookupService, "binInfoTable", new BinInfoTable());
+        Fields.set(binLookupService, "binLookups", new SingleFlight<String, CardInfoResponse.Country>());
+        Fields.set(binLookupService, "binlistCircuitBreaker", new CircuitBreaker(circuitBreakerProperties));
+        Fields.set(binLookupService, "circuitBreakerProperties", circuitBreakerProperties);
+        Fields.set(binLookupService, "phaseTimers", phaseTimers);
+
+        CardCostLookupTable cardCostLookupTable = new CardCostLookupTable();
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.created(new CardCost(1L, "US", 5.0, 1L)));
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.created(new CardCost(2L, "GR", 15.0, 1L)));
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.created(new CardCost(3L, CardCostLookupTable.OTHERS, 10.0, 1L)));
+
+        cardCostService = new CardCostService();
+        Fields.set(cardCostService, "binLookupService", binLookupService);
+        Fields.set(cardCostService, "cardCostLookupTable", cardCostLookupTable);
+        Fields.set(cardCostService, "phaseTimers", phaseTimers);
+
+        request = new PaymentCardCostRequest();
+        request.setCardNumber("4571736000000000");
+    }
+
+    @Benchmark
+    public CardCost getPaymentCardCost() {
+        return cardCostService.getPaymentCardCost(request);
+    }
+
+    static final class StubBinlistClient extends BinlistClient {
+        private final CompletableFuture<CardInfoResponse> response;
+
+        StubBinlistClient(String alpha2) {
+            super(HttpClient.newHttpClient(), new ObjectMapper(), new BinlistProperties());
+            CardInfoResponse.Country country = new CardInfoResponse.Country();
+            country.setAlpha2(alpha2);
+            CardInfoResponse cardInfoResponse = new CardInfoResponse();
+            cardInfoResponse.setCountry(country);
+            this.response = CompletableFuture.completedFuture(cardInfoResponse);
+        }
+
+        @Override
+        public CompletableFuture<CardInfoResponse> lookup(String bin) {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.travel.cardcostapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.utils.Utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request helpers of /payment-card-cost: request validation and card number masking for the logs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBenchmark {
+    private String cardNumber;
+    private PaymentCardCostRequest request;
+
+    @Setup
+    public void setUp() {
+        cardNumber = "4571736000000000";
+        request = new PaymentCardCostRequest();
+        request.setCardNumber(cardNumber);
+    }
+
+    @Benchmark
+    public PaymentCardCostRequest validate() {
+        request.validate();
+        return request;
+    }
+
+    @Benchmark
+    public String getMaskedCardNumber() {
+        return Utils.getMaskedCardNumber(cardNumber);
+    }
+}
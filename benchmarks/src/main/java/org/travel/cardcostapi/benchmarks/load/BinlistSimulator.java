@@ -0,0 +1,122 @@
+package org.travel.cardcostapi.benchmarks.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for lookup.binlist.net. Every BIN maps to a fixed country, answers take the configured
+ * latency plus a random jitter, a share of them fails with 500, and above the per-minute quota requests are
+ * answered 429 with Retry-After until the minute is over, like binlist's own quota.
+ */
+public class BinlistSimulator implements AutoCloseable {
+    static final String[] COUNTRIES = {"US", "GR", "DE", "GB", "FR", "IT", "ES", "NL"};
+
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final int quotaPerMinute;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong windowRequests = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public BinlistSimulator(Duration latency, Duration jitter, double errorRate, int quotaPerMinute) throws IOException {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        this.quotaPerMinute = quotaPerMinute;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            if (quotaExceeded(exchange)) {
+                return;
+            }
+
+            long delayNanos = latency.toNanos() + (jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toNanos()));
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.increment();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            String bin = exchange.getRequestURI().getPath().substring(1);
+            String country = COUNTRIES[Math.floorMod(bin.hashCode(), COUNTRIES.length)];
+            byte[] body = ("{\"scheme\":\"visa\",\"type\":\"debit\",\"country\":{\"alpha2\":\"" + country + "\",\"name\":\"" + country + "\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    //fixed one minute windows, like a per-minute quota reset on the minute
+    private boolean quotaExceeded(HttpExchange exchange) throws IOException {
+        if (quotaPerMinute <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long currentWindow = now / 60_000;
+        long previousWindow = window.get();
+        if (currentWindow != previousWindow && window.compareAndSet(previousWindow, currentWindow)) {
+            windowRequests.set(0);
+        }
+        if (windowRequests.incrementAndGet() <= quotaPerMinute) {
+            return false;
+        }
+        rateLimited.increment();
+        long retryAfterSeconds = Math.max(1, ((currentWindow + 1) * 60_000 - now + 999) / 1000);
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+        exchange.sendResponseHeaders(429, -1);
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package org.travel.cardcostapi.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.travel.cardcostapi.CardCostApiApplication;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the api on H2 against a {@link BinlistSimulator} and sends requests at a constant arrival rate, then
+ * reports throughput and latency percentiles per endpoint. Latency is measured from the time a request was
+ * scheduled, not sent, so a saturated api shows up in the percentiles instead of lowering the send rate.
+ * <p>
+ * Usage: java -cp benchmarks/target/benchmarks.jar org.travel.cardcostapi.benchmarks.load.LoadTest [options]
+ * <pre>
+ *   --rate=200                   requests per second
+ *   --duration=30s               measured time, after --warmup=10s
+ *   --payment-ratio=0.8          share of POST /payment-card-cost, the rest reads /card-costs
+ *   --bins=10000                 distinct BINs the card numbers are drawn from
+ *   --max-in-flight=2000         requests outstanding at once
+ *   --binlist-latency=50ms       plus up to --binlist-jitter=20ms
+ *   --binlist-error-rate=0.0     share of binlist calls answered 500
+ *   --binlist-quota=0            binlist calls per minute before 429, 0 for none
+ * </pre>
+ * Any other --key=value argument is passed to the api, e.g. --spring.threads.virtual.enabled=true.
+ */
+public class LoadTest {
+    private static final String PAYMENT = "POST /payment-card-cost";
+    private static final String LIST = "GET /card-costs";
+    private static final String BY_ID = "GET /card-costs/{id}";
+    private static final String[] SEEDED_COUNTRIES = {"US", "GR", "DE", "GB", "OTHERS"};
+
+    private final Map<String, String> options = new LinkedHashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    private HttpClient client;
+    private String baseUrl;
+    private Semaphore inFlight;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(args).run(System.out);
+    }
+
+    LoadTest(String[] args) {
+        options.put("rate", "200");
+        options.put("duration", "30s");
+        options.put("warmup", "10s");
+        options.put("payment-ratio", "0.8");
+        options.put("bins", "10000");
+        options.put("max-in-flight", "2000");
+        options.put("binlist-latency", "50ms");
+        options.put("binlist-jitter", "20ms");
+        options.put("binlist-error-rate", "0.0");
+        options.put("binlist-quota", "0");
+        for (String arg : args) {
+            String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (options.containsKey(keyValue[0]) && keyValue.length == 2) {
+                options.put(keyValue[0], keyValue[1]);
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+    }
+
+    void run(PrintStream out) throws Exception {
+        try (BinlistSimulator binlist = new BinlistSimulator(duration("binlist-latency"), duration("binlist-jitter"),
+                Double.parseDouble(options.get("binlist-error-rate")), Integer.parseInt(options.get("binlist-quota")));
+             ConfigurableApplicationContext context = startApplication(binlist)) {
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            inFlight = new Semaphore(Integer.parseInt(options.get("max-in-flight")));
+
+            List<Long> ids = seed();
+            out.printf("Warming up for %s at %s req/s%n", options.get("warmup"), options.get("rate"));
+            drive(duration("warmup"), ids);
+            endpoints.clear();
+            long binlistRequests = binlist.getRequests();
+
+            out.printf("Measuring for %s at %s req/s%n", options.get("duration"), options.get("rate"));
+            long start = System.nanoTime();
+            drive(duration("duration"), ids);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report(out, seconds);
+            out.printf("%nbinlist simulator: %d requests, %d errors, %d rate limited (all phases)%n",
+                    binlist.getRequests() - binlistRequests, binlist.getErrors(), binlist.getRateLimited());
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(BinlistSimulator binlist) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--cardcost.binlist.url=" + binlist.getUrl(),
+                "--cardcost.binlist.http2=false",
+                "--cardcost.binlist.rate-limit.requests-per-minute=1000000",
+                "--cardcost.binlist.rate-limit.burst=100000",
+                "--cardcost.binlist.bulkhead.max-concurrent-calls=" + options.get("max-in-flight"),
+                "--cardcost.binlist.bulkhead.max-waiting-calls=" + options.get("max-in-flight"),
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        //passed last, so they win over the defaults above
+        args.addAll(applicationArgs);
+        return new SpringApplicationBuilder(CardCostApiApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private List<Long> seed() {
+        List<Long> ids = new ArrayList<>();
+        for (String country : SEEDED_COUNTRIES) {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/card-costs"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"country\":\"" + country + "\",\"cost\":" + (5 + ids.size()) + "}"))
+                    .build()).join();
+            String body = response.body();
+            int idStart = body.indexOf("\"id\":") + 5;
+            ids.add(Long.parseLong(body.substring(idStart, body.indexOf(',', idStart)).trim()));
+        }
+        return ids;
+    }
+
+    //open model: request i is due at start + i * interval whatever happened to the previous ones
+    private void drive(Duration duration, List<Long> ids) throws InterruptedException {
+        double rate = Double.parseDouble(options.get("rate"));
+        double paymentRatio = Double.parseDouble(options.get("payment-ratio"));
+        int bins = Integer.parseInt(options.get("bins"));
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long count = (long) (duration.toNanos() / intervalNanos);
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String name;
+            HttpRequest request;
+            if (random.nextDouble() < paymentRatio) {
+                name = PAYMENT;
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/payment-card-cost"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"card_number\":\"" + cardNumber(random, bins) + "\"}"))
+                        .build();
+            } else if (random.nextBoolean()) {
+                name = LIST;
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/card-costs")).GET().build();
+            } else {
+                name = BY_ID;
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/card-costs/" + ids.get(random.nextInt(ids.size())))).GET().build();
+            }
+
+            inFlight.acquire();
+            Endpoint endpoint = endpoints.computeIfAbsent(name, key -> new Endpoint());
+            requests.add(send(request).whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    endpoint.record(System.nanoTime() - scheduledAt, -1, throwable.toString());
+                } else {
+                    endpoint.record(System.nanoTime() - scheduledAt, response.statusCode(), response.body());
+                }
+                inFlight.release();
+            }));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null).join();
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private void report(PrintStream out, double seconds) {
+        out.printf("%n%-24s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms", "non-2xx");
+        endpoints.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Histogram latencies = entry.getValue().latencies;
+            out.printf("%-24s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d%n", entry.getKey(),
+                    latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(95)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()), entry.getValue().failures());
+        });
+        endpoints.forEach((name, endpoint) -> {
+            out.printf("%-24s statuses %s%n", name, endpoint.statuses);
+            endpoint.failureSamples.forEach((status, body) -> out.printf("%-24s %d e.g. %s%n", "", status, body));
+        });
+    }
+
+    private Duration duration(String option) {
+        return DurationStyle.detectAndParse(options.get(option));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    //Luhn-valid 16 digit card number of one of the first 'bins' BINs from 400000
+    static String cardNumber(ThreadLocalRandom random, int bins) {
+        String payload = (400000 + random.nextInt(bins)) + String.format("%09d", random.nextInt(1_000_000_000));
+        int sum = 0;
+        for (int i = 0; i < payload.length(); i++) {
+            int digit = payload.charAt(payload.length() - 1 - i) - '0';
+            if (i % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return payload + (10 - sum % 10) % 10;
+    }
+
+    private static final class Endpoint {
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final Map<Integer, String> failureSamples = new ConcurrentHashMap<>();
+
+        //status -1 when no response was received
+        void record(long latencyNanos, int status, String body) {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            if (status < 200 || status >= 300) {
+                failureSamples.putIfAbsent(status, body);
+            }
+        }
+
+        long failures() {
+            return statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                    .mapToLong(entry -> entry.getValue().sum())
+                    .sum();
+        }
+    }
+}
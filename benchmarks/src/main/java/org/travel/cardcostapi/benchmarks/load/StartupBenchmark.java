@@ -0,0 +1,233 @@
+package org.travel.cardcostapi.benchmarks.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Starts the api as a separate JVM and measures the time from launching the process to the first successful
+ * POST /payment-card-cost, the moment a new instance starts being useful, in two modes:
+ * <ul>
+ *   <li>normal: java -jar on the exec jar, as deployed today</li>
+ *   <li>fast-startup: the AOT processed jar extracted by mvn -Pfast-startup package, with -Dspring.aot.enabled=true
+ *   and the CDS archive of its training run</li>
+ * </ul>
+ * The api runs against the given database, Postgres of docker-compose by default, and a {@link BinlistSimulator}.
+ * One unmeasured start first creates the schema and the 'OTHERS' card cost. Use the JDK that built the CDS archive,
+ * the archive is ignored by any other.
+ * <p>
+ * Usage: java -cp benchmarks/target/benchmarks.jar org.travel.cardcostapi.benchmarks.load.StartupBenchmark [options]
+ * <pre>
+ *   --runs=5                                   measured starts per mode
+ *   --modes=normal,fast-startup
+ *   --jar=target/CardCostApi-1.0.0-exec.jar    jar of the normal mode
+ *   --fast-startup-dir=target/fast-startup     extracted jar & CardCostApi.jsa of the fast-startup mode
+ *   --datasource-url=jdbc:postgresql://localhost:5432/test
+ *   --datasource-username=user
+ *   --datasource-password=pass
+ *   --timeout=120s                             per start
+ * </pre>
+ * Any other --key=value argument is passed to the api, any other argument to its JVM, e.g. -Xmx512m.
+ */
+public class StartupBenchmark {
+    private static final String NORMAL = "normal";
+    private static final String FAST_STARTUP = "fast-startup";
+    private static final String CARD_NUMBER = "4111111111111111";
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final Map<String, String> options = new LinkedHashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+    private final List<String> jvmArgs = new ArrayList<>();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark(args).run(System.out);
+    }
+
+    StartupBenchmark(String[] args) {
+        options.put("runs", "5");
+        options.put("modes", NORMAL + "," + FAST_STARTUP);
+        options.put("jar", "target/CardCostApi-1.0.0-exec.jar");
+        options.put("fast-startup-dir", "target/fast-startup");
+        options.put("datasource-url", "jdbc:postgresql://localhost:5432/test");
+        options.put("datasource-username", "user");
+        options.put("datasource-password", "pass");
+        options.put("timeout", "120s");
+        for (String arg : args) {
+            String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+            if (options.containsKey(keyValue[0]) && keyValue.length == 2) {
+                options.put(keyValue[0], keyValue[1]);
+            } else if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else {
+                jvmArgs.add(arg);
+            }
+        }
+    }
+
+    void run(PrintStream out) throws Exception {
+        List<String> modes = List.of(options.get("modes").split(","));
+        int runs = Integer.parseInt(options.get("runs"));
+        Map<String, List<Long>> results = new LinkedHashMap<>();
+
+        try (BinlistSimulator binlist = new BinlistSimulator(Duration.ZERO, Duration.ZERO, 0, 0)) {
+            out.printf("Seeding the database with an unmeasured %s start%n", modes.get(0));
+            start(modes.get(0), binlist, true);
+
+            for (String mode : modes) {
+                List<Long> millis = new ArrayList<>();
+                for (int run = 1; run <= runs; run++) {
+                    long elapsed = start(mode, binlist, false);
+                    out.printf("%-14s run %d: %6d ms%n", mode, run, elapsed);
+                    millis.add(elapsed);
+                }
+                results.put(mode, millis);
+            }
+        }
+
+        report(out, results);
+    }
+
+    //launches the api, waits for its first successful payment card cost and stops it; returns the milliseconds it took
+    private long start(String mode, BinlistSimulator binlist, boolean seed) throws Exception {
+        int port = freePort();
+        Path log = Files.createTempFile("cardcost-startup-" + mode + "-", ".log");
+        ProcessBuilder processBuilder = new ProcessBuilder(command(mode, port, binlist))
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+
+        long startTime = System.nanoTime();
+        Process process = processBuilder.start();
+        try {
+            long deadline = startTime + duration("timeout").toNanos();
+            String baseUrl = "http://localhost:" + port;
+            boolean seeded = !seed;
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + " api exited with " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException(mode + " api did not answer within " + options.get("timeout") + ", see " + log);
+                }
+                if (!seeded) {
+                    //400 when it already exists
+                    seeded = post(baseUrl + "/card-costs", "{\"country\":\"OTHERS\",\"cost\":10}") > 0;
+                } else if (post(baseUrl + "/payment-card-cost", "{\"card_number\":\"" + CARD_NUMBER + "\"}") == 200) {
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                    Files.deleteIfExists(log);
+                    return elapsed;
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> command(String mode, int port, BinlistSimulator binlist) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        switch (mode) {
+            case NORMAL -> {
+                command.add("-jar");
+                command.add(options.get("jar"));
+            }
+            case FAST_STARTUP -> {
+                Path directory = Path.of(options.get("fast-startup-dir"));
+                command.add("-XX:SharedArchiveFile=" + directory.resolve("CardCostApi.jsa"));
+                command.add("-Dspring.aot.enabled=true");
+                command.add("-jar");
+                command.add(extractedJar(directory).toString());
+            }
+            default -> throw new IllegalArgumentException("Unknown mode '" + mode + "', expected " + NORMAL + " or " + FAST_STARTUP);
+        }
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + options.get("datasource-url"),
+                "--spring.datasource.username=" + options.get("datasource-username"),
+                "--spring.datasource.password=" + options.get("datasource-password"),
+                "--cardcost.binlist.url=" + binlist.getUrl(),
+                "--cardcost.binlist.http2=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        //passed last, so they win over the defaults above
+        command.addAll(applicationArgs);
+        return command;
+    }
+
+    //status of the response, 0 while the api does not accept connections yet
+    private int post(String url, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void report(PrintStream out, Map<String, List<Long>> results) {
+        out.printf("%n%-14s %6s %9s %9s %9s %9s%n", "mode", "runs", "min ms", "median ms", "mean ms", "max ms");
+        results.forEach((mode, millis) -> {
+            List<Long> sorted = millis.stream().sorted().toList();
+            out.printf("%-14s %6d %9d %9d %9.0f %9d%n", mode, sorted.size(), sorted.get(0), median(sorted),
+                    sorted.stream().mapToLong(Long::longValue).average().orElse(0), sorted.get(sorted.size() - 1));
+        });
+        if (results.containsKey(NORMAL) && results.containsKey(FAST_STARTUP)) {
+            long normal = median(results.get(NORMAL).stream().sorted().toList());
+            long fastStartup = median(results.get(FAST_STARTUP).stream().sorted().toList());
+            out.printf("%nfast-startup median is %.1f%% of normal%n", 100.0 * fastStartup / normal);
+        }
+    }
+
+    private Duration duration(String option) {
+        return DurationStyle.detectAndParse(options.get(option));
+    }
+
+    private static long median(List<Long> sorted) {
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static Path extractedJar(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + directory + ", build it with mvn -Pfast-startup package"));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
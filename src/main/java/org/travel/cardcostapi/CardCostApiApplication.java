@@ -2,8 +2,10 @@ package org.travel.cardcostapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class CardCostApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(CardCostApiApplication.class, args);
@@ -0,0 +1,108 @@
+package org.travel.cardcostapi.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, concurrent BIN -> country cache in front of the external BIN lookup.
+ * Hit/miss/eviction counts are published as the 'binCountry' cache metrics.
+ * <p>
+ * Every country is also kept in a longer lived last known good cache, which is only read as a fallback
+ * while the external BIN lookup is unavailable.
+ */
+@Component
+public class BinCountryCache {
+    public static final String CACHE_NAME = "binCountry";
+
+    private final Cache<String, CardInfoResponse.Country> cache;
+    private final Cache<String, CardInfoResponse.Country> lastKnown;
+    private final Duration ttl;
+    private final Duration staleTtl;
+
+    @Autowired
+    public BinCountryCache(BinCacheProperties binCacheProperties, MeterRegistry meterRegistry) {
+        this(binCacheProperties, meterRegistry, Ticker.systemTicker());
+    }
+
+    BinCountryCache(BinCacheProperties binCacheProperties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.ttl = binCacheProperties.getTtl();
+        this.staleTtl = binCacheProperties.getStaleTtl();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(binCacheProperties.getMaxSize())
+                .expireAfter(new AfterWrite(ttl))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(binCacheProperties.getMaxSize())
+                .expireAfter(new AfterWrite(staleTtl))
+                .ticker(ticker)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<CardInfoResponse.Country> get(String bin) {
+        return Optional.ofNullable(cache.getIfPresent(bin));
+    }
+
+    public void put(String bin, CardInfoResponse.Country country) {
+        cache.put(bin, country);
+        lastKnown.put(bin, country);
+    }
+
+    /**
+     * Puts a country that was fetched age ago, e.g. reloaded from disk, so it expires as if it had been put then.
+     */
+    public void restore(String bin, CardInfoResponse.Country country, Duration age) {
+        restore(cache, ttl.minus(age), bin, country);
+        restore(lastKnown, staleTtl.minus(age), bin, country);
+    }
+
+    /**
+     * @return last known country of the BIN, which may have expired from the cache already
+     */
+    public Optional<CardInfoResponse.Country> getStale(String bin) {
+        return Optional.ofNullable(lastKnown.getIfPresent(bin));
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private static void restore(Cache<String, CardInfoResponse.Country> cache, Duration remaining, String bin, CardInfoResponse.Country country) {
+        if (remaining.isNegative() || remaining.isZero()) {
+            return;
+        }
+        cache.policy().expireVariably().orElseThrow().putIfAbsent(bin, country, remaining);
+    }
+
+    //expire after write, but open to a shorter first lifetime through restore
+    private record AfterWrite(Duration ttl) implements Expiry<String, CardInfoResponse.Country> {
+        @Override
+        public long expireAfterCreate(String bin, CardInfoResponse.Country country, long currentTime) {
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String bin, CardInfoResponse.Country country, long currentTime, long currentDuration) {
+            return ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String bin, CardInfoResponse.Country country, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.travel.cardcostapi.caches;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.configs.BinStoreProperties;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only, memory-mapped log of the BIN -> country results fetched from binlist, replayed into
+ * {@link BinCountryCache} on startup so a restarted node starts with the BINs it already knew.
+ * <p>
+ * File layout (big-endian), pre-sized to maxEntries records:
+ * <pre>
+ * int   magic 'BINS', int version, long reserved
+ * maxEntries x record: byte binLength (0 = free), 2 bytes ASCII alpha-2, byte reserved, int bin, long fetchedAt millis
+ * </pre>
+ * binLength is written last, so a record torn by a crash is ignored on reload. A full file is compacted on a
+ * background thread: the latest result of every BIN still within the stale TTL is rewritten to a new file, at most
+ * maxEntries / 2 of them. Results fetched while the file is full are not stored, they are still cached.
+ */
+@Log4j2
+@Component
+public class BinCountryStore {
+    public static final int MAGIC = 0x42494E53;
+    public static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+    static final int MAX_BIN_LENGTH = 9;
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private BinStoreProperties binStoreProperties;
+    @Autowired
+    private BinCacheProperties binCacheProperties;
+    @Autowired
+    private BinCountryCache binCountryCache;
+
+    private LongSupplier clock = System::currentTimeMillis;
+    private Executor compactor;
+
+    private Path path;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private boolean compacting;
+
+    @PostConstruct
+    public void init() {
+        String file = binStoreProperties.getFile();
+        if (file == null || file.isBlank()) {
+            log.info("{} No BIN store file configured, resolved BINs are not kept across restarts.", PREFIX);
+            return;
+        }
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bin-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startTime = Utils.getStartTime();
+        try {
+            int restored = open(Path.of(file));
+            log.info("{} Restored '{}' BIN countries from '{}' within '{}' ms", PREFIX, restored, file, Utils.getExecutionTime(startTime));
+        } catch (IOException | RuntimeException e) {
+            //the store only warms the cache, the api runs without it
+            log.error("{} Cannot open BIN store file '{}', resolved BINs are not kept across restarts. Cause: '{}'", PREFIX, file, e.getMessage());
+            buffer = null;
+        }
+    }
+
+    /**
+     * Opens the store file, creating it when missing, and restores its results into the BIN cache.
+     *
+     * @return number of BINs restored
+     */
+    public synchronized int open(Path path) throws IOException {
+        this.path = path;
+        this.capacity = Math.max(2, binStoreProperties.getMaxEntries());
+        replace(map(path));
+        if (size > capacity) {
+            //written with a larger maxEntries
+            compact();
+        }
+
+        Map<String, Entry> latest = readLatest();
+        long now = clock.getAsLong();
+        latest.forEach((bin, entry) -> binCountryCache.restore(bin, country(entry.alpha2()), Duration.ofMillis(Math.max(0, now - entry.fetchedAt()))));
+        return latest.size();
+    }
+
+    /**
+     * Appends a result fetched now. When the file is full the result is not stored and the file is compacted in the
+     * background. Does nothing when disabled.
+     */
+    public synchronized void append(String bin, String alpha2) {
+        if (buffer == null || !isStorable(bin, alpha2)) {
+            return;
+        }
+        if (size == capacity) {
+            if (!compacting) {
+                compacting = true;
+                compactor.execute(this::compactInBackground);
+            }
+            log.debug("{} BIN store file '{}' is full, result of BIN: '{}' is not stored", PREFIX, path, bin);
+            return;
+        }
+
+        write(buffer, size++, bin, alpha2, clock.getAsLong());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEnabled() {
+        return buffer != null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (compactor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+        synchronized (this) {
+            if (buffer != null) {
+                buffer.force();
+            }
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            //the file still holds its results, compaction is tried again on the next append
+            log.error("{} Cannot compact BIN store file '{}'. Cause: '{}'", PREFIX, path, e.getMessage());
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    //rewrites the latest result of every BIN still within the stale TTL, the newest ones when they do not all fit;
+    //the store keeps its current file and mapping until the new file has replaced it. Runs without holding the store
+    //lock, appends do not write to a full mapping
+    void compact() throws IOException {
+        long startTime = Utils.getStartTime();
+        Map<String, Entry> latest;
+        synchronized (this) {
+            latest = readLatest();
+        }
+        int skip = Math.max(0, latest.size() - capacity / 2);
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        Mapping mapping = null;
+        try {
+            mapping = map(compacted);
+            int written = mapping.size();
+            int index = 0;
+            for (Map.Entry<String, Entry> result : latest.entrySet()) {
+                if (index++ < skip) {
+                    continue;
+                }
+                write(mapping.buffer(), written++, result.getKey(), result.getValue().alpha2(), result.getValue().fetchedAt());
+            }
+            mapping.buffer().force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            mapping = new Mapping(mapping.buffer(), written);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        //a mapping outlives the rename, it now maps the store file
+        synchronized (this) {
+            replace(mapping);
+        }
+
+        log.info("{} Compacted BIN store file '{}' to '{}' results within '{}' ms", PREFIX, path, mapping.size(), Utils.getExecutionTime(startTime));
+    }
+
+    //binLength last, it marks the record as complete
+    private static void write(MappedByteBuffer buffer, int index, String bin, String alpha2, long fetchedAt) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        buffer.put(offset + 1, (byte) alpha2.charAt(0));
+        buffer.put(offset + 2, (byte) alpha2.charAt(1));
+        buffer.putInt(offset + 4, Integer.parseInt(bin));
+        buffer.putLong(offset + 8, fetchedAt);
+        buffer.put(offset, (byte) bin.length());
+    }
+
+    //the mapping replaced is released once collected
+    private void replace(Mapping mapping) {
+        this.buffer = mapping.buffer();
+        this.size = mapping.size();
+    }
+
+    //maps the file, at least capacity records long, with its size after the last record written
+    private Mapping map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            long mapSize = Math.max(fileSize, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            if (mapSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("BIN store file is too large, lower maxEntries");
+            }
+            if (fileSize > 0) {
+                //checked before mapping, which would grow any other file to the store size
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                if (header.getInt(0) != MAGIC) {
+                    throw new IllegalArgumentException("not a BIN store file");
+                }
+                if (header.getInt(4) != VERSION) {
+                    throw new IllegalArgumentException("unsupported version " + header.getInt(4));
+                }
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+            if (fileSize == 0) {
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, VERSION);
+            }
+
+            int records = (int) ((mapSize - HEADER_SIZE) / RECORD_SIZE);
+            int written = 0;
+            while (written < records && mapped.get(HEADER_SIZE + written * RECORD_SIZE) != 0) {
+                written++;
+            }
+            return new Mapping(mapped, written);
+        }
+    }
+
+    //latest result per BIN in the order they were appended, results older than the stale TTL left out
+    private Map<String, Entry> readLatest() {
+        long oldest = clock.getAsLong() - binCacheProperties.getStaleTtl().toMillis();
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            int binLength = buffer.get(offset);
+            if (binLength < 1 || binLength > MAX_BIN_LENGTH) {
+                continue;
+            }
+            String bin = leftPad(buffer.getInt(offset + 4), binLength);
+            long fetchedAt = buffer.getLong(offset + 8);
+            latest.remove(bin);
+            if (fetchedAt >= oldest) {
+                latest.put(bin, new Entry(new String(new char[]{(char) buffer.get(offset + 1), (char) buffer.get(offset + 2)}), fetchedAt));
+            }
+        }
+        return latest;
+    }
+
+    private static boolean isStorable(String bin, String alpha2) {
+        if (bin == null || bin.isEmpty() || bin.length() > MAX_BIN_LENGTH || alpha2 == null || alpha2.length() != 2) {
+            return false;
+        }
+        for (int i = 0; i < bin.length(); i++) {
+            if (bin.charAt(i) < '0' || bin.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return alpha2.charAt(0) < 128 && alpha2.charAt(1) < 128;
+    }
+
+    private static String leftPad(int bin, int length) {
+        String digits = Integer.toString(bin);
+        return digits.length() >= length ? digits : "0".repeat(length - digits.length()) + digits;
+    }
+
+    private static CardInfoResponse.Country country(String alpha2) {
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        country.setAlpha2(alpha2);
+        return country;
+    }
+
+    private record Entry(String alpha2, long fetchedAt) {
+    }
+
+    private record Mapping(MappedByteBuffer buffer, int size) {
+    }
+}
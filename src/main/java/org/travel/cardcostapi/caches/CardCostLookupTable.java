@@ -0,0 +1,218 @@
+package org.travel.cardcostapi.caches;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.repositories.CardCostRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable in-memory snapshot of the card cost table used by the payment path.
+ * Alpha-2 countries live in a dense 26x26 array, any other code (e.g. 'OTHERS') in a small map,
+ * and the 'OTHERS' fallback is resolved once per snapshot. Writes swap the whole snapshot after commit.
+ * <p>
+ * Loaded when the context starts, before the web server, rather than when the bean is created: a refresh-only
+ * run (spring.context.exit=onRefresh, e.g. the CDS training run) then needs no database.
+ */
+@Log4j2
+@Component
+public class CardCostLookupTable implements SmartLifecycle {
+    public static final String OTHERS = "OTHERS";
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private CardCostRepository cardCostRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    //changes committed while a reload reads the rows, applied again on top of the rows it read
+    private final List<CardCostChangedEvent> changesDuringReload = new ArrayList<>();
+    private int reloading;
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        reload();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //before the web server, which starts in phase SmartLifecycle.DEFAULT_PHASE - 2048
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    //from the primary, and a change committed while the rows were read, a delete included, is not undone by them
+    public void reload() {
+        synchronized (changesDuringReload) {
+            reloading++;
+        }
+        try {
+            List<CardCost> cardCosts = cardCostRepository.findAllOnPrimary();
+            Snapshot loaded;
+            synchronized (changesDuringReload) {
+                loaded = Snapshot.of(cardCosts, snapshot.get());
+                for (CardCostChangedEvent event : changesDuringReload) {
+                    loaded = loaded.apply(event.getPreviousCountry(), event.getCardCost());
+                }
+                snapshot.set(loaded);
+            }
+            log.info("{} Loaded '{}' card costs into lookup table.", PREFIX, loaded.size());
+        } finally {
+            synchronized (changesDuringReload) {
+                if (--reloading == 0) {
+                    changesDuringReload.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return cost of the given country, the 'OTHERS' cost when the country has none, or null when neither exists
+     */
+    public CardCost resolve(String country) {
+        Snapshot current = snapshot.get();
+        CardCost cardCost = current.get(country);
+        return cardCost != null ? cardCost : current.others;
+    }
+
+    public int size() {
+        return snapshot.get().size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCardCostChanged(CardCostChangedEvent event) {
+        synchronized (changesDuringReload) {
+            if (reloading > 0) {
+                changesDuringReload.add(event);
+            }
+            snapshot.updateAndGet(current -> current.apply(event.getPreviousCountry(), event.getCardCost()));
+        }
+    }
+
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new CardCost[26 * 26], Map.of());
+
+        private final CardCost[] byAlpha2;
+        private final Map<String, CardCost> byOtherCode;
+        private final CardCost others;
+
+        private Snapshot(CardCost[] byAlpha2, Map<String, CardCost> byOtherCode) {
+            this.byAlpha2 = byAlpha2;
+            this.byOtherCode = byOtherCode;
+            this.others = byOtherCode.get(OTHERS);
+        }
+
+        static Snapshot of(Collection<CardCost> cardCosts) {
+            return of(cardCosts, EMPTY);
+        }
+
+        //the loaded rows, except those current already has a newer version of
+        static Snapshot of(Collection<CardCost> cardCosts, Snapshot current) {
+            CardCost[] byAlpha2 = new CardCost[26 * 26];
+            Map<String, CardCost> byOtherCode = new HashMap<>();
+            for (CardCost cardCost : cardCosts) {
+                CardCost existing = current.get(cardCost.getCountry());
+                boolean newer = existing != null && Objects.equals(existing.getId(), cardCost.getId()) && version(existing) > version(cardCost);
+                put(byAlpha2, byOtherCode, newer ? existing : copyOf(cardCost));
+            }
+            return new Snapshot(byAlpha2, Map.copyOf(byOtherCode));
+        }
+
+        CardCost get(String country) {
+            if (country == null) {
+                return null;
+            }
+            int index = indexOf(country);
+            return index >= 0 ? byAlpha2[index] : byOtherCode.get(country);
+        }
+
+        int size() {
+            int size = byOtherCode.size();
+            for (CardCost cardCost : byAlpha2) {
+                if (cardCost != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        Snapshot apply(String previousCountry, CardCost changed) {
+            CardCost existing = changed == null ? null : get(changed.getCountry());
+            if (existing != null && Objects.equals(existing.getId(), changed.getId()) && version(existing) > version(changed)) {
+                // a newer version of this row was already applied
+                return this;
+            }
+
+            CardCost[] nextByAlpha2 = Arrays.copyOf(byAlpha2, byAlpha2.length);
+            Map<String, CardCost> nextByOtherCode = new HashMap<>(byOtherCode);
+            if (previousCountry != null) {
+                remove(nextByAlpha2, nextByOtherCode, previousCountry);
+            }
+            if (changed != null) {
+                put(nextByAlpha2, nextByOtherCode, copyOf(changed));
+            }
+            return new Snapshot(nextByAlpha2, Map.copyOf(nextByOtherCode));
+        }
+
+        private static void put(CardCost[] byAlpha2, Map<String, CardCost> byOtherCode, CardCost cardCost) {
+            int index = indexOf(cardCost.getCountry());
+            if (index >= 0) {
+                byAlpha2[index] = cardCost;
+            } else {
+                byOtherCode.put(cardCost.getCountry(), cardCost);
+            }
+        }
+
+        private static void remove(CardCost[] byAlpha2, Map<String, CardCost> byOtherCode, String country) {
+            int index = indexOf(country);
+            if (index >= 0) {
+                byAlpha2[index] = null;
+            } else {
+                byOtherCode.remove(country);
+            }
+        }
+
+        private static int indexOf(String country) {
+            if (country.length() != 2) {
+                return -1;
+            }
+            int first = country.charAt(0) - 'A';
+            int second = country.charAt(1) - 'A';
+            if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+                return -1;
+            }
+            return first * 26 + second;
+        }
+
+        private static long version(CardCost cardCost) {
+            return cardCost.getVersion() == null ? -1 : cardCost.getVersion();
+        }
+
+        private static CardCost copyOf(CardCost cardCost) {
+            return new CardCost(cardCost.getId(), cardCost.getCountry(), cardCost.getCost(), cardCost.getVersion());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.travel.cardcostapi.clients;
+
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A remote source of BIN lookups. Lookups complete with {@link org.travel.cardcostapi.exceptions.ExternalApiException}
+ * on failure, an upstream failure ({@link org.travel.cardcostapi.exceptions.ExternalApiException#isUpstreamFailure()})
+ * meaning another provider may still answer.
+ */
+public interface BinLookupProvider {
+
+    String getName();
+
+    /**
+     * @return scheme, type and country.alpha2 of the BIN, completed with null when the provider has no answer body
+     */
+    CompletableFuture<CardInfoResponse> lookup(String bin);
+
+    /**
+     * Lookup on behalf of a caller of the given priority, which only matters to a rate limited provider.
+     */
+    default CompletableFuture<CardInfoResponse> lookup(String bin, RateLimiter.Priority priority) {
+        return lookup(bin, priority, () -> {});
+    }
+
+    /**
+     * Lookup on behalf of a caller of the given priority, onSend runs once the lookup is actually sent, after any wait
+     * for the quota of a rate limited provider, so response times are measured from there.
+     */
+    default CompletableFuture<CardInfoResponse> lookup(String bin, RateLimiter.Priority priority, Runnable onSend) {
+        onSend.run();
+        return lookup(bin);
+    }
+}
@@ -0,0 +1,269 @@
+package org.travel.cardcostapi.clients;
+
+import lombok.extern.log4j.Log4j2;
+import org.travel.cardcostapi.configs.BinProviderProperties;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Routes BIN lookups between the configured providers. Every lookup goes to the healthy provider with the lowest
+ * median response time first, a provider without recent response times counts as the fastest so it gets measured.
+ * An upstream failure fails over to the next provider at once, a provider failing failureThreshold times in a row
+ * is passed over for unhealthyDuration and only used when all others failed. A provider rejecting the lookup itself,
+ * e.g. out of its quota ({@link ServiceUnavailableException}), is failed over too but not counted as failing.
+ * Response times are measured from the moment a provider sends the lookup, not counting a wait for its quota.
+ * <p>
+ * With hedging on, a lookup the first provider has not answered within its hedgePercentile response time is also
+ * sent to the next provider, and the first answer wins. Only the lookups slower than that percentile are sent
+ * twice, so this trades a few percent more calls for a shorter tail.
+ */
+@Log4j2
+public class BinProviderRouter implements BinLookupProvider {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    private final BinProviderProperties properties;
+    private final LongSupplier nanoClock;
+    private final List<ProviderStats> providers;
+    private final LongAdder hedgedCount = new LongAdder();
+    private final LongAdder hedgeWonCount = new LongAdder();
+
+    public BinProviderRouter(List<? extends BinLookupProvider> providers, BinProviderProperties properties) {
+        this(providers, properties, System::nanoTime);
+    }
+
+    BinProviderRouter(List<? extends BinLookupProvider> providers, BinProviderProperties properties, LongSupplier nanoClock) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one BIN lookup provider is needed");
+        }
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.providers = providers.stream().map(ProviderStats::new).toList();
+    }
+
+    @Override
+    public String getName() {
+        return String.join(",", providers.stream().map(ProviderStats::getName).toList());
+    }
+
+    @Override
+    public CompletableFuture<CardInfoResponse> lookup(String bin) {
+        return lookup(bin, RateLimiter.Priority.INTERACTIVE);
+    }
+
+    @Override
+    public CompletableFuture<CardInfoResponse> lookup(String bin, RateLimiter.Priority priority, Runnable onSend) {
+        Lookup lookup = new Lookup(bin, priority, onSend, route());
+        lookup.sendNext();
+        if (properties.isHedge() && lookup.route.size() > 1) {
+            Duration delay = lookup.route.get(0).hedgeDelay();
+            if (delay != null) {
+                CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(lookup::hedge);
+            }
+        }
+        return lookup.result;
+    }
+
+    public List<ProviderStats> getProviders() {
+        return providers;
+    }
+
+    public long getHedgedCount() {
+        return hedgedCount.sum();
+    }
+
+    public long getHedgeWonCount() {
+        return hedgeWonCount.sum();
+    }
+
+    //healthy providers by median response time, then the unhealthy ones as a last resort
+    List<ProviderStats> route() {
+        long now = nanoClock.getAsLong();
+        List<ProviderStats> route = new ArrayList<>(providers);
+        route.sort(Comparator.comparing((ProviderStats provider) -> !provider.isHealthy(now))
+                .thenComparingLong(provider -> provider.percentileNanos(50)));
+        return route;
+    }
+
+    private static boolean isUpstreamFailure(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        return !(cause instanceof ExternalApiException externalApiException) || externalApiException.isUpstreamFailure();
+    }
+
+    private static boolean isRejected(Throwable throwable) {
+        return unwrap(throwable) instanceof ServiceUnavailableException;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+
+    //one lookup sent to the providers of its route in order, until one answers
+    private final class Lookup {
+        private final String bin;
+        private final RateLimiter.Priority priority;
+        private final Runnable onSend;
+        private final List<ProviderStats> route;
+        private final CompletableFuture<CardInfoResponse> result = new CompletableFuture<>();
+        private int sent;
+        private int pending;
+        private boolean hedged;
+        private boolean onSendRun;
+
+        private Lookup(String bin, RateLimiter.Priority priority, Runnable onSend, List<ProviderStats> route) {
+            this.bin = bin;
+            this.priority = priority;
+            this.onSend = onSend;
+            this.route = route;
+        }
+
+        private synchronized void hedge() {
+            //not after a failover, the next provider is already asked
+            if (result.isDone() || sent != 1) {
+                return;
+            }
+            hedged = true;
+            hedgedCount.increment();
+            log.debug("{} Hedging BIN: '{}' of '{}' to '{}'", PREFIX, bin, route.get(0).getName(), route.get(1).getName());
+            sendNext();
+        }
+
+        private synchronized void sendNext() {
+            ProviderStats provider = route.get(sent);
+            int index = sent++;
+            pending++;
+            //set again once the provider sends the lookup, which may first wait for its quota
+            AtomicLong start = new AtomicLong(nanoClock.getAsLong());
+            CompletableFuture<CardInfoResponse> response;
+            try {
+                response = provider.provider.lookup(bin, priority, () -> {
+                    start.set(nanoClock.getAsLong());
+                    onSent();
+                });
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((cardInfoResponse, throwable) -> onResponse(provider, index, start.get(), cardInfoResponse, throwable));
+        }
+
+        //the caller learns when the first provider sent the lookup
+        private synchronized void onSent() {
+            if (!onSendRun) {
+                onSendRun = true;
+                onSend.run();
+            }
+        }
+
+        private synchronized void onResponse(ProviderStats provider, int index, long start, CardInfoResponse cardInfoResponse, Throwable throwable) {
+            pending--;
+            long now = nanoClock.getAsLong();
+            if (throwable == null || !isUpstreamFailure(throwable)) {
+                //the answer of a provider, an unknown BIN included
+                provider.onSuccess(now - start);
+                if (result.isDone()) {
+                    return;
+                }
+                if (hedged && index > 0) {
+                    hedgeWonCount.increment();
+                }
+                if (throwable == null) {
+                    result.complete(cardInfoResponse);
+                } else {
+                    result.completeExceptionally(throwable);
+                }
+                return;
+            }
+
+            if (!isRejected(throwable)) {
+                provider.onFailure(now);
+            }
+            if (result.isDone()) {
+                return;
+            }
+            if (sent < route.size()) {
+                log.warn("{} BIN lookup provider '{}' failed, trying '{}'", PREFIX, provider.getName(), route.get(sent).getName());
+                sendNext();
+            } else if (pending == 0) {
+                result.completeExceptionally(throwable);
+            }
+        }
+    }
+
+    /**
+     * Recent response times and consecutive failures of a provider.
+     */
+    public final class ProviderStats {
+        private final BinLookupProvider provider;
+        private final long[] latencies = new long[Math.max(1, properties.getLatencyWindowSize())];
+        private int recorded;
+        private int next;
+        private int consecutiveFailures;
+        private long unhealthyUntil;
+
+        private ProviderStats(BinLookupProvider provider) {
+            this.provider = provider;
+        }
+
+        public String getName() {
+            return provider.getName();
+        }
+
+        public synchronized boolean isHealthy() {
+            return isHealthy(nanoClock.getAsLong());
+        }
+
+        /**
+         * @return the percentile of the recent response times, 0 when there are none
+         */
+        public synchronized long percentileNanos(double percentile) {
+            if (recorded == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, recorded);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * recorded) - 1;
+            return sorted[Math.min(recorded - 1, Math.max(0, index))];
+        }
+
+        synchronized boolean isHealthy(long now) {
+            return consecutiveFailures < properties.getFailureThreshold() || now - unhealthyUntil >= 0;
+        }
+
+        //null while there are too few response times to tell a slow lookup
+        synchronized Duration hedgeDelay() {
+            if (recorded < properties.getMinimumSamples()) {
+                return null;
+            }
+            long delay = Math.max(properties.getMinHedgeDelay().toNanos(), percentileNanos(properties.getHedgePercentile()));
+            return Duration.ofNanos(delay);
+        }
+
+        private synchronized void onSuccess(long latency) {
+            latencies[next] = latency;
+            next = (next + 1) % latencies.length;
+            recorded = Math.min(recorded + 1, latencies.length);
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void onFailure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures == properties.getFailureThreshold() || (consecutiveFailures > properties.getFailureThreshold() && now - unhealthyUntil >= 0)) {
+                unhealthyUntil = now + properties.getUnhealthyDuration().toNanos();
+                log.warn("{} BIN lookup provider '{}' failed '{}' times in a row, passing it over for '{}'", PREFIX,
+                        getName(), consecutiveFailures, properties.getUnhealthyDuration());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.travel.cardcostapi.clients;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.travel.cardcostapi.configs.BinlistProperties;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking binlist.net client on top of a shared {@link HttpClient}, which keeps connections alive and
+ * reuses them (multiplexed over HTTP/2 when the server supports it). Every lookup has a hard deadline and
+ * fails with {@link ExternalApiException}. Responses are read by a {@link BinlistResponseReader}, only the
+ * fields the api uses are parsed.
+ */
+@Log4j2
+public class BinlistClient implements BinLookupProvider {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    private final String name;
+    private final HttpClient httpClient;
+    private final BinlistResponseReader binlistResponseReader;
+    private final BinlistProperties binlistProperties;
+
+    public BinlistClient(HttpClient httpClient, ObjectMapper objectMapper, BinlistProperties binlistProperties) {
+        this("binlist", httpClient, objectMapper, binlistProperties);
+    }
+
+    public BinlistClient(String name, HttpClient httpClient, ObjectMapper objectMapper, BinlistProperties binlistProperties) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.binlistResponseReader = new BinlistResponseReader(objectMapper.getFactory());
+        this.binlistProperties = binlistProperties;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return scheme, type and country.alpha2 of the BIN, completed with null when binlist answers with an empty body
+     */
+    @Override
+    public CompletableFuture<CardInfoResponse> lookup(String bin) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(binlistProperties.getUrl() + bin))
+                .timeout(binlistProperties.getRequestTimeout())
+                .header("Accept", "application/json")
+                .header("Accept-Version", "3")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(binlistProperties.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, throwable) -> {
+                    if (throwable != null) {
+                        throw toExternalApiException(throwable);
+                    }
+                    return readResponse(response);
+                });
+    }
+
+    private CardInfoResponse readResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            log.error("{} External API returned an error. Cause: '{}'", PREFIX, response.statusCode());
+            throw new ExternalApiException("External API returned an error: " + HttpStatusCode.valueOf(response.statusCode()),
+                    response.statusCode(), response.headers().firstValue(HttpHeaders.RETRY_AFTER).map(BinlistClient::parseRetryAfter).orElse(null));
+        }
+        if (response.body() == null || response.body().length == 0) {
+            return null;
+        }
+        try {
+            return binlistResponseReader.read(response.body());
+        } catch (IOException e) {
+            log.error("{} An error occurred while reading the external API response. Cause: '{}'", PREFIX, e.getMessage());
+            throw new ExternalApiException("An error occurred while communicating with the external API.");
+        }
+    }
+
+    //Retry-After is either a number of seconds or an HTTP date
+    static Duration parseRetryAfter(String value) {
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Instant retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                Duration retryAfter = Duration.between(Instant.now(), retryAt);
+                return retryAfter.isNegative() ? Duration.ZERO : retryAfter;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private ExternalApiException toExternalApiException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof ExternalApiException externalApiException) {
+            return externalApiException;
+        }
+        if (cause instanceof IOException || cause instanceof TimeoutException) {
+            log.error("{} Failed to connect to external API. Cause: '{}'", PREFIX, cause.toString());
+            return new ExternalApiException("Failed to connect to external API. Please try again later.");
+        }
+        log.error("{} An error occurred while communicating with the external API.. Cause: '{}'", PREFIX, cause.toString());
+        return new ExternalApiException("An error occurred while communicating with the external API.");
+    }
+}
@@ -0,0 +1,32 @@
+package org.travel.cardcostapi.clients;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the binlist circuit breaker as the 'binlist' health component. An open or half-open breaker is
+ * reported as DEGRADED rather than DOWN: payment card costs are still served from the offline ranges, the
+ * cache and the degraded mode fallbacks.
+ */
+@Component("binlist")
+public class BinlistHealthIndicator implements HealthIndicator {
+    public static final Status DEGRADED = new Status("DEGRADED", "binlist is failing, BIN lookups are short-circuited");
+
+    @Autowired
+    private CircuitBreaker binlistCircuitBreaker;
+
+    @Override
+    public Health health() {
+        CircuitBreaker.State state = binlistCircuitBreaker.getState();
+        Health.Builder health = state == CircuitBreaker.State.CLOSED ? Health.up() : Health.status(DEGRADED);
+        return health
+                .withDetail("state", state)
+                .withDetail("failureRate", binlistCircuitBreaker.getFailureRate())
+                .withDetail("rejectedCalls", binlistCircuitBreaker.getRejectedCount())
+                .withDetail("retryAfter", binlistCircuitBreaker.getRemainingOpenDuration().toString())
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package org.travel.cardcostapi.clients;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.io.IOException;
+
+/**
+ * Reads the fields of a binlist response the api uses, scheme, type and country.alpha2, straight from the JSON
+ * tokens. Every other value is skipped without being bound, and the rest of the body is not read at all once
+ * the three are found, so a lookup allocates a {@link CardInfoResponse} and its {@link CardInfoResponse.Country}
+ * with only those fields set instead of the whole object graph.
+ */
+public class BinlistResponseReader {
+    private final JsonFactory jsonFactory;
+
+    public BinlistResponseReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @return scheme, type and country.alpha2 of the response, null when the body is the JSON null
+     * @throws IOException when the body is not JSON or any of the three has the wrong type
+     */
+    public CardInfoResponse read(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            expect(parser, token, JsonToken.START_OBJECT);
+
+            CardInfoResponse cardInfoResponse = new CardInfoResponse();
+            boolean scheme = false, type = false, country = false;
+            String field;
+            while (!(scheme && type && country) && (field = parser.nextFieldName()) != null) {
+                token = parser.nextToken();
+                switch (field) {
+                    case "scheme" -> {
+                        cardInfoResponse.setScheme(readText(parser, token));
+                        scheme = true;
+                    }
+                    case "type" -> {
+                        cardInfoResponse.setType(readText(parser, token));
+                        type = true;
+                    }
+                    case "country" -> {
+                        cardInfoResponse.setCountry(readCountry(parser, token));
+                        country = true;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return cardInfoResponse;
+        }
+    }
+
+    private static CardInfoResponse.Country readCountry(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT);
+
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            token = parser.nextToken();
+            if ("alpha2".equals(field)) {
+                country.setAlpha2(readText(parser, token));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return country;
+    }
+
+    //scalars as text like the object mapper binds them to a String
+    private static String readText(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a scalar value for '" + parser.currentName() + "', got " + token);
+        }
+        return parser.getValueAsString();
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + ", got " + token);
+        }
+    }
+}
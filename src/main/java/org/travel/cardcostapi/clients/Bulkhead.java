@@ -0,0 +1,80 @@
+package org.travel.cardcostapi.clients;
+
+import org.travel.cardcostapi.configs.BulkheadProperties;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Semaphore bulkhead in front of binlist: at most maxConcurrentCalls lookups run at once, up to maxWaitingCalls
+ * more wait in arrival order for at most maxWait, and anything beyond is rejected right away with
+ * {@link ServiceUnavailableException}. While binlist is slow the other request threads stay free for
+ * card cost administration and lookups served from the caches.
+ */
+public class Bulkhead {
+    private final BulkheadProperties properties;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public Bulkhead(BulkheadProperties properties) {
+        this.properties = properties;
+        this.permits = new Semaphore(properties.getMaxConcurrentCalls(), true);
+    }
+
+    /**
+     * Takes a slot, to be given back with {@link #release()}.
+     *
+     * @throws ServiceUnavailableException when all slots stay taken, or too many lookups already wait for one
+     */
+    public void acquire() {
+        //a zero timeout still queues behind the waiting lookups, unlike tryAcquire()
+        if (tryAcquire(0)) {
+            return;
+        }
+        if (waiting.incrementAndGet() > properties.getMaxWaitingCalls()) {
+            waiting.decrementAndGet();
+            throw reject();
+        }
+        try {
+            if (!tryAcquire(properties.getMaxWait().toNanos())) {
+                throw reject();
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getActiveCount() {
+        return properties.getMaxConcurrentCalls() - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private boolean tryAcquire(long nanos) {
+        try {
+            return permits.tryAcquire(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private ServiceUnavailableException reject() {
+        rejectedCount.increment();
+        return new ServiceUnavailableException("Too many concurrent external API lookups. Please try again later.", properties.getRetryAfter());
+    }
+}
@@ -0,0 +1,153 @@
+package org.travel.cardcostapi.clients;
+
+import org.travel.cardcostapi.configs.CircuitBreakerProperties;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker. Outcomes of the last calls are kept in a ring buffer, once enough calls were
+ * recorded and the failure or slow call rate reaches its threshold the breaker opens and rejects calls for
+ * the configured wait duration. It then turns half-open and lets a few trial calls through: if all of them
+ * succeed it closes again, the first failed or slow one opens it again.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final CircuitBreakerProperties properties;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int recorded;
+    private int next;
+    private int failedCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long rejectedCount;
+
+    public CircuitBreaker(CircuitBreakerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    CircuitBreaker(CircuitBreakerProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.failed = new boolean[properties.getSlidingWindowSize()];
+        this.slow = new boolean[properties.getSlidingWindowSize()];
+    }
+
+    /**
+     * @return true when the call may proceed, its outcome must then be reported with onSuccess or onError
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < properties.getWaitDurationInOpenState().toNanos()) {
+                rejectedCount++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= properties.getPermittedCallsInHalfOpenState()) {
+                rejectedCount++;
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a permission whose call was never sent, so it is neither a success nor a failure.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    public void onError(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return time left until trial calls are let through, zero unless the breaker is open
+     */
+    public synchronized Duration getRemainingOpenDuration() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = properties.getWaitDurationInOpenState().toNanos() - (nanoClock.getAsLong() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /** Failure rate of the recorded calls in percent, -1 until the minimum number of calls was recorded. */
+    public synchronized float getFailureRate() {
+        return recorded < properties.getMinimumNumberOfCalls() ? -1 : failedCount * 100f / recorded;
+    }
+
+    private synchronized void record(boolean failure, long durationNanos) {
+        boolean slowCall = durationNanos >= properties.getSlowCallDuration().toNanos();
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (failure || slowCall) {
+                open();
+            } else if (++halfOpenSuccesses >= properties.getPermittedCallsInHalfOpenState()) {
+                close();
+            }
+            return;
+        }
+
+        if (recorded == failed.length) {
+            failedCount -= failed[next] ? 1 : 0;
+            slowCount -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failedCount += failure ? 1 : 0;
+        slowCount += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (recorded >= properties.getMinimumNumberOfCalls()
+                && (failedCount * 100 >= properties.getFailureRateThreshold() * recorded
+                || slowCount * 100 >= properties.getSlowCallRateThreshold() * recorded)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+}
@@ -0,0 +1,130 @@
+package org.travel.cardcostapi.clients;
+
+import org.travel.cardcostapi.configs.RateLimitProperties;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket in front of binlist, refilled at the configured per-minute quota.
+ * <p>
+ * Interactive lookups reserve the next permit and wait for it, so they are served in arrival order. Batch
+ * lookups never reserve ahead: they only take a permit when one is free beyond the interactive reserve and
+ * otherwise wait and try again, so interactive lookups arriving meanwhile go first. A lookup that would wait
+ * longer than the maximum wait of its priority is rejected at once with {@link ServiceUnavailableException}.
+ * After binlist answers 429 no permit is handed out until its Retry-After has passed.
+ */
+public class RateLimiter {
+    public enum Priority { INTERACTIVE, BATCH }
+
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private final RateLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+    private final double nanosPerPermit;
+
+    //negative when permits were promised to waiting interactive lookups
+    private double permits;
+    private long refilledAt;
+    private long pausedUntil;
+    private long grantedCount;
+    private long rejectedCount;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock, Sleeper sleeper) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+        this.nanosPerPermit = (double) TimeUnit.MINUTES.toNanos(1) / properties.getRequestsPerMinute();
+        this.permits = properties.getBurst();
+        this.refilledAt = nanoClock.getAsLong();
+        this.pausedUntil = refilledAt;
+    }
+
+    /**
+     * Blocks until a binlist call may be sent.
+     *
+     * @throws ServiceUnavailableException when no permit is available within the maximum wait of the priority
+     */
+    public void acquire(Priority priority) {
+        Duration maxWait = priority == Priority.INTERACTIVE ? properties.getInteractiveMaxWait() : properties.getBatchMaxWait();
+        long deadline = nanoClock.getAsLong() + maxWait.toNanos();
+        while (true) {
+            long wait;
+            boolean reserved;
+            synchronized (this) {
+                long now = nanoClock.getAsLong();
+                refill(now);
+                int floor = priority == Priority.BATCH ? properties.getInteractiveReserve() : 0;
+                wait = Math.max(0, Math.max(pausedUntil - now, (long) Math.ceil((floor + 1 - permits) * nanosPerPermit)));
+                if (now + wait > deadline) {
+                    rejectedCount++;
+                    throw new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", Duration.ofNanos(wait));
+                }
+                reserved = priority == Priority.INTERACTIVE || wait == 0;
+                if (reserved) {
+                    permits--;
+                    grantedCount++;
+                }
+            }
+            if (wait > 0) {
+                sleep(wait);
+            }
+            if (reserved) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops handing out permits for the given time and drops the permits left, binlist reported the quota as spent.
+     *
+     * @param retryAfter pause requested by binlist, the configured default when null
+     * @return the pause applied
+     */
+    public synchronized Duration pause(Duration retryAfter) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        Duration pause = retryAfter != null ? retryAfter : properties.getDefaultRetryAfter();
+        pausedUntil = Math.max(pausedUntil, now + pause.toNanos());
+        permits = Math.min(permits, 0);
+        return pause;
+    }
+
+    public synchronized double getAvailablePermits() {
+        refill(nanoClock.getAsLong());
+        return Math.max(0, permits);
+    }
+
+    public synchronized long getGrantedCount() {
+        return grantedCount;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private void refill(long now) {
+        if (now > refilledAt) {
+            permits = Math.min(properties.getBurst(), permits + (now - refilledAt) / nanosPerPermit);
+            refilledAt = now;
+        }
+    }
+
+    private void sleep(long nanos) {
+        try {
+            sleeper.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the external API rate limit.", Duration.ofNanos(nanos));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.travel.cardcostapi.clients;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends the lookups of one provider within its quota and bulkhead: a rate limit permit first, then a bulkhead slot
+ * held until the provider answers, so lookups waiting for the quota do not take slots. Only the calls actually sent
+ * to this provider are charged, first attempts, failovers and hedges alike, and a 429 pauses this provider alone.
+ * <p>
+ * Waiting happens on the given executor rather than on the calling thread, which may be an HTTP client thread
+ * failing over or the hedging timer. A lookup that gets no permit or slot, or hits a 429, completes with
+ * {@link ServiceUnavailableException}, which the router takes as a reason to ask the next provider.
+ */
+@Log4j2
+public class ThrottledBinLookupProvider implements BinLookupProvider {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    private final BinLookupProvider provider;
+    private final RateLimiter rateLimiter;
+    private final Bulkhead bulkhead;
+    private final Executor executor;
+
+    public ThrottledBinLookupProvider(BinLookupProvider provider, RateLimiter rateLimiter, Bulkhead bulkhead, Executor executor) {
+        this.provider = provider;
+        this.rateLimiter = rateLimiter;
+        this.bulkhead = bulkhead;
+        this.executor = executor;
+    }
+
+    @Override
+    public String getName() {
+        return provider.getName();
+    }
+
+    @Override
+    public CompletableFuture<CardInfoResponse> lookup(String bin) {
+        return lookup(bin, RateLimiter.Priority.INTERACTIVE);
+    }
+
+    @Override
+    public CompletableFuture<CardInfoResponse> lookup(String bin, RateLimiter.Priority priority, Runnable onSend) {
+        return CompletableFuture.runAsync(() -> {
+                    rateLimiter.acquire(priority);
+                    bulkhead.acquire();
+                }, executor)
+                .thenCompose(ignored -> send(bin, onSend));
+    }
+
+    private CompletableFuture<CardInfoResponse> send(String bin, Runnable onSend) {
+        CompletableFuture<CardInfoResponse> response;
+        try {
+            onSend.run();
+            response = provider.lookup(bin);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<CardInfoResponse> result = new CompletableFuture<>();
+        response.whenComplete((cardInfoResponse, throwable) -> {
+            bulkhead.release();
+            if (throwable == null) {
+                result.complete(cardInfoResponse);
+            } else {
+                result.completeExceptionally(onFailure(throwable));
+            }
+        });
+        return result;
+    }
+
+    private Throwable onFailure(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+        if (cause instanceof ExternalApiException e && e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            //the quota is spent, not a sign of an unhealthy provider
+            Duration retryAfter = rateLimiter.pause(e.getRetryAfter());
+            log.warn("{} '{}' rate limit reached, pausing calls for '{}'", PREFIX, getName(), retryAfter);
+            return new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", retryAfter);
+        }
+        return cause;
+    }
+}
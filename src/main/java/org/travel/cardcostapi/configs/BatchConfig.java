@@ -0,0 +1,33 @@
+package org.travel.cardcostapi.configs;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class BatchConfig {
+
+    @Bean("batchLookupExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor batchLookupExecutor(BatchProperties batchProperties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchProperties.getParallelism());
+        executor.setMaxPoolSize(batchProperties.getParallelism());
+        executor.setThreadNamePrefix("batch-lookup-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    //one virtual thread per BIN, the concurrency limit keeps the parallelism bounded
+    @Bean("batchLookupExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualBatchLookupExecutor(BatchProperties batchProperties) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("batch-lookup-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(batchProperties.getParallelism());
+        return executor;
+    }
+}
@@ -0,0 +1,14 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the batch payment card cost endpoint.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.batch")
+public class BatchProperties {
+    /** Maximum number of BINs resolved concurrently, shared by all running batches. */
+    private int parallelism = 8;
+}
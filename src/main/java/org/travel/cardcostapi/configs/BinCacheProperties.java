@@ -0,0 +1,20 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the in-process BIN -> country cache.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.bin-cache")
+public class BinCacheProperties {
+    /** Maximum number of BINs kept, least recently used are evicted first. */
+    private long maxSize = 100_000;
+    /** How long a resolved country is trusted after it was fetched. */
+    private Duration ttl = Duration.ofHours(24);
+    /** How long an expired country is kept as a fallback while binlist is unavailable. */
+    private Duration staleTtl = Duration.ofDays(7);
+}
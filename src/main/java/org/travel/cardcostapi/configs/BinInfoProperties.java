@@ -0,0 +1,22 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the bin_info table shared by all instances.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.bin-info")
+public class BinInfoProperties {
+    /** Whether BINs are looked up in and written to the bin_info table. */
+    private boolean enabled = true;
+    /** Delay between two writes of the results fetched from binlist. */
+    private Duration writeBehindDelay = Duration.ofSeconds(1);
+    /** Maximum number of results written in one transaction. */
+    private int batchSize = 100;
+    /** Maximum number of results waiting to be written, newer ones are dropped beyond it. */
+    private int maxPending = 10_000;
+}
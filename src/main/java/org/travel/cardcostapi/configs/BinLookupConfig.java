@@ -0,0 +1,137 @@
+package org.travel.cardcostapi.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.travel.cardcostapi.clients.BinLookupProvider;
+import org.travel.cardcostapi.clients.BinProviderRouter;
+import org.travel.cardcostapi.clients.BinlistClient;
+import org.travel.cardcostapi.clients.Bulkhead;
+import org.travel.cardcostapi.clients.CircuitBreaker;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.clients.ThrottledBinLookupProvider;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.utils.SingleFlight;
+
+import java.math.BigDecimal;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class BinLookupConfig {
+
+    //binlist.net first, within its quota and bulkhead, then the additional providers, in the order they are configured
+    @Bean
+    public BinProviderRouter binLookupProvider(BinlistProperties binlistProperties, BinProviderProperties binProviderProperties,
+                                               RateLimiter binlistRateLimiter, Bulkhead binlistBulkhead,
+                                               ObjectMapper objectMapper, Environment environment, MeterRegistry meterRegistry) {
+        List<BinLookupProvider> providers = new ArrayList<>();
+        //lookups wait for a permit or slot on virtual threads, never on the HTTP client or hedging threads
+        Executor throttleExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("binlist-throttle-", 0).factory());
+        providers.add(new ThrottledBinLookupProvider(new BinlistClient(httpClient(binlistProperties, environment), objectMapper, binlistProperties),
+                binlistRateLimiter, binlistBulkhead, throttleExecutor));
+        binProviderProperties.getAdditional().forEach((name, properties) ->
+                providers.add(new BinlistClient(name, httpClient(properties, environment), objectMapper, properties)));
+
+        BinProviderRouter router = new BinProviderRouter(providers, binProviderProperties);
+        for (BinProviderRouter.ProviderStats provider : router.getProviders()) {
+            Gauge.builder("bin.provider.latency", provider, stats -> stats.percentileNanos(50) / 1_000_000.0)
+                    .tags("provider", provider.getName(), "percentile", "50")
+                    .baseUnit("milliseconds")
+                    .description("Median of the recent response times of a BIN lookup provider")
+                    .register(meterRegistry);
+            Gauge.builder("bin.provider.latency", provider, stats -> stats.percentileNanos(binProviderProperties.getHedgePercentile()) / 1_000_000.0)
+                    .tags("provider", provider.getName(), "percentile", BigDecimal.valueOf(binProviderProperties.getHedgePercentile()).stripTrailingZeros().toPlainString())
+                    .baseUnit("milliseconds")
+                    .description("Hedge percentile of the recent response times of a BIN lookup provider")
+                    .register(meterRegistry);
+            Gauge.builder("bin.provider.healthy", provider, stats -> stats.isHealthy() ? 1 : 0)
+                    .tag("provider", provider.getName())
+                    .description("1 while a BIN lookup provider is routed to, 0 while it is passed over after failures")
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("bin.provider.hedged", router, BinProviderRouter::getHedgedCount)
+                .description("BIN lookups also sent to a second provider after the hedge delay")
+                .register(meterRegistry);
+        FunctionCounter.builder("bin.provider.hedges.won", router, BinProviderRouter::getHedgeWonCount)
+                .description("Hedged BIN lookups answered by the second provider first")
+                .register(meterRegistry);
+        return router;
+    }
+
+    @Bean
+    public SingleFlight<String, CardInfoResponse.Country> binLookups(MeterRegistry meterRegistry) {
+        SingleFlight<String, CardInfoResponse.Country> binLookups = new SingleFlight<>();
+        FunctionCounter.builder("binlist.lookups.executed", binLookups, SingleFlight::executedCount)
+                .description("BIN lookups sent to the external API")
+                .register(meterRegistry);
+        FunctionCounter.builder("binlist.lookups.coalesced", binLookups, SingleFlight::coalescedCount)
+                .description("BIN lookups collapsed into an identical lookup already in flight")
+                .register(meterRegistry);
+        Gauge.builder("binlist.lookups.in.flight", binLookups, SingleFlight::inFlightCount)
+                .description("BINs currently being looked up")
+                .register(meterRegistry);
+        return binLookups;
+    }
+
+    @Bean
+    public CircuitBreaker binlistCircuitBreaker(CircuitBreakerProperties circuitBreakerProperties, MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerProperties);
+        Gauge.builder("binlist.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("State of the binlist circuit breaker: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        FunctionCounter.builder("binlist.circuit.rejected", circuitBreaker, CircuitBreaker::getRejectedCount)
+                .description("BIN lookups rejected without calling the external API")
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    @Bean
+    public RateLimiter binlistRateLimiter(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+        RateLimiter rateLimiter = new RateLimiter(rateLimitProperties);
+        Gauge.builder("binlist.rate.limit.available", rateLimiter, RateLimiter::getAvailablePermits)
+                .description("binlist calls that can be sent right away")
+                .register(meterRegistry);
+        FunctionCounter.builder("binlist.rate.limit.granted", rateLimiter, RateLimiter::getGrantedCount)
+                .description("binlist calls let through by the rate limiter")
+                .register(meterRegistry);
+        FunctionCounter.builder("binlist.rate.limit.rejected", rateLimiter, RateLimiter::getRejectedCount)
+                .description("BIN lookups rejected because the binlist quota was spent")
+                .register(meterRegistry);
+        return rateLimiter;
+    }
+
+    @Bean
+    public Bulkhead binlistBulkhead(BulkheadProperties bulkheadProperties, MeterRegistry meterRegistry) {
+        Bulkhead bulkhead = new Bulkhead(bulkheadProperties);
+        Gauge.builder("binlist.bulkhead.active", bulkhead, Bulkhead::getActiveCount)
+                .description("binlist lookups in progress")
+                .register(meterRegistry);
+        Gauge.builder("binlist.bulkhead.waiting", bulkhead, Bulkhead::getWaitingCount)
+                .description("binlist lookups waiting for a bulkhead slot")
+                .register(meterRegistry);
+        FunctionCounter.builder("binlist.bulkhead.rejected", bulkhead, Bulkhead::getRejectedCount)
+                .description("BIN lookups rejected because too many binlist lookups were in progress")
+                .register(meterRegistry);
+        return bulkhead;
+    }
+
+    private static HttpClient httpClient(BinlistProperties binlistProperties, Environment environment) {
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .version(binlistProperties.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(binlistProperties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            httpClient.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return httpClient.build();
+    }
+}
@@ -0,0 +1,32 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BIN lookup providers besides binlist.net (cardcost.binlist.*), and how lookups are routed between them.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.bin-providers")
+public class BinProviderProperties {
+    /** Further providers answering in the binlist format, by name, e.g. an internal BIN service or a binlist mirror. */
+    private Map<String, BinlistProperties> additional = new LinkedHashMap<>();
+    /** Number of most recent response times of each provider its latency percentiles are computed over. */
+    private int latencyWindowSize = 100;
+    /** Consecutive upstream failures after which a provider is only used when all others failed. */
+    private int failureThreshold = 3;
+    /** How long such a provider is passed over before it is tried first again. */
+    private Duration unhealthyDuration = Duration.ofSeconds(30);
+    /** Send the lookup to the next provider too when the first one is slower than its usual response time. */
+    private boolean hedge = false;
+    /** Percentile of the first provider's response times after which the hedged request is sent. */
+    private double hedgePercentile = 95;
+    /** Lower bound of the hedge delay. */
+    private Duration minHedgeDelay = Duration.ofMillis(20);
+    /** Response times needed before the first provider is hedged. */
+    private int minimumSamples = 20;
+}
@@ -0,0 +1,14 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the offline BIN range database compiled by {@link org.travel.cardcostapi.utils.BinRangeCompiler}.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.bin-ranges")
+public class BinRangeProperties {
+    /** Path of the compiled BIN range file, the database is disabled when empty. */
+    private String file;
+}
@@ -0,0 +1,16 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the file that keeps resolved BIN -> country results across restarts.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.bin-store")
+public class BinStoreProperties {
+    /** Path of the BIN store file, created when missing; the store is disabled when empty. */
+    private String file;
+    /** Maximum number of results the file holds before it is compacted. */
+    private int maxEntries = 200_000;
+}
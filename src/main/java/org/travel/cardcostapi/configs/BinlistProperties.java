@@ -0,0 +1,22 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the binlist.net client.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.binlist")
+public class BinlistProperties {
+    /** Base url, the BIN is appended to it. */
+    private String url = "https://lookup.binlist.net/";
+    /** Maximum time to establish a connection. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Deadline of a whole lookup, from sending the request to the parsed response. */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+    /** Negotiate HTTP/2 when the server supports it, HTTP/1.1 keep-alive otherwise. */
+    private boolean http2 = true;
+}
@@ -0,0 +1,22 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds the request threads tied up in binlist lookups, so a slow binlist cannot take all of them.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.binlist.bulkhead")
+public class BulkheadProperties {
+    /** binlist lookups in progress at once, from sending the request to the response; lookups waiting for a rate limit permit do not count. */
+    private int maxConcurrentCalls = 10;
+    /** Lookups that may wait for one of them to finish, any further one is rejected at once. */
+    private int maxWaitingCalls = 10;
+    /** Longest a lookup waits for a free slot before it is rejected. */
+    private Duration maxWait = Duration.ofMillis(100);
+    /** Retry-After sent with a rejection. */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
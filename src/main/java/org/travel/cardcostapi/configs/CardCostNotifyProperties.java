@@ -0,0 +1,26 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the Postgres LISTEN/NOTIFY channel keeping the card cost lookup table of every instance in sync.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.card-cost-notify")
+public class CardCostNotifyProperties {
+    /** Whether card cost changes are notified to and received from the other instances, only used on Postgres. */
+    private boolean enabled = true;
+    /** Postgres channel the changes are notified on. */
+    private String channel = "card_cost_changed";
+    /** Longest time the listener waits for notifications before checking it should stop. */
+    private Duration pollInterval = Duration.ofMillis(500);
+    /** Interval of the checks of the listening connection, a broken one is reopened and the table reloaded. */
+    private Duration validationInterval = Duration.ofSeconds(30);
+    /** Interval of the full reloads of the table, the most a missed notification can leave it stale. */
+    private Duration resyncInterval = Duration.ofMinutes(5);
+    /** Delay before reopening the listening connection after it failed. */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,32 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the circuit breaker around the binlist lookup and of the degraded mode used while it is open.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.binlist.circuit-breaker")
+public class CircuitBreakerProperties {
+    /** Number of most recent calls the failure and slow call rates are computed over. */
+    private int slidingWindowSize = 20;
+    /** Calls needed in the window before the rates are evaluated. */
+    private int minimumNumberOfCalls = 10;
+    /** Percentage of failed calls that opens the breaker. */
+    private int failureRateThreshold = 50;
+    /** Percentage of slow calls that opens the breaker. */
+    private int slowCallRateThreshold = 80;
+    /** Calls taking longer than this count as slow. */
+    private Duration slowCallDuration = Duration.ofSeconds(2);
+    /** How long the breaker rejects calls before letting trial calls through. */
+    private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+    /** Trial calls let through while half-open, all of them must succeed to close the breaker. */
+    private int permittedCallsInHalfOpenState = 3;
+    /** Serve the last known country of a BIN, even if expired, when binlist is unavailable. */
+    private boolean serveStale = true;
+    /** Price unresolved BINs with the 'OTHERS' cost when binlist is unavailable. */
+    private boolean serveOthers = false;
+}
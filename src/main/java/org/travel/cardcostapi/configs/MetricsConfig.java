@@ -0,0 +1,31 @@
+package org.travel.cardcostapi.configs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.travel.cardcostapi.metrics.PhaseTimers;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+@Configuration
+public class MetricsConfig {
+
+    //replaces the default JSON converter, response bodies are timed as the serialization phase
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper, PhaseTimers phaseTimers) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+                long start = System.nanoTime();
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    phaseTimers.record(PhaseTimers.Phase.SERIALIZATION, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package org.travel.cardcostapi.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Outbound quota of binlist calls, enforced by a token bucket before any request is sent.
+ */
+@Data
+@ConfigurationProperties(prefix = "cardcost.binlist.rate-limit")
+public class RateLimitProperties {
+    /** Sustained number of binlist calls allowed per minute. */
+    private int requestsPerMinute = 10;
+    /** Calls that may be sent at once after an idle period. */
+    private int burst = 10;
+    /** Permits of the bucket batch lookups may not take, they are kept for interactive lookups. */
+    private int interactiveReserve = 2;
+    /** Longest an interactive lookup waits for a permit before it is rejected. */
+    private Duration interactiveMaxWait = Duration.ofSeconds(2);
+    /** Longest a batch lookup waits for a permit before it is rejected. */
+    private Duration batchMaxWait = Duration.ofSeconds(30);
+    /** Pause after a 429 from binlist that carries no Retry-After header. */
+    private Duration defaultRetryAfter = Duration.ofSeconds(60);
+}
@@ -1,5 +1,9 @@
 package org.travel.cardcostapi.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -7,15 +11,35 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.travel.cardcostapi.metrics.CardNumberRejections;
+import org.travel.cardcostapi.metrics.PhaseTimers;
 import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.requests.BatchPaymentCardCostRequest;
 import org.travel.cardcostapi.requests.CreateCardCostRequest;
 import org.travel.cardcostapi.requests.PaymentCardCostRequest;
 import org.travel.cardcostapi.requests.UpdateCardCostRequest;
+import org.travel.cardcostapi.responses.BatchPaymentCardCostResponse;
+import org.travel.cardcostapi.responses.CardCostImportResponse;
+import org.travel.cardcostapi.responses.CardCostPageResponse;
 import org.travel.cardcostapi.responses.PaymentCardCostResponse;
+import org.travel.cardcostapi.services.BatchPaymentCardCostService;
+import org.travel.cardcostapi.services.CardCostImportService;
 import org.travel.cardcostapi.services.CardCostService;
+import org.travel.cardcostapi.utils.ETags;
 import org.travel.cardcostapi.utils.Utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Log4j2
@@ -23,9 +47,20 @@ import java.util.List;
 @RequestMapping("/")
 public class CardCostController {
     private final String PREFIX = this.getClass().getSimpleName() + ":>";
+    private static final String CSV_VALUE = "text/csv";
 
     @Autowired
     private CardCostService cardCostService;
+    @Autowired
+    private BatchPaymentCardCostService batchPaymentCardCostService;
+    @Autowired
+    private CardCostImportService cardCostImportService;
+    @Autowired
+    private PhaseTimers phaseTimers;
+    @Autowired
+    private CardNumberRejections cardNumberRejections;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Tag(name = "Post", description = "POST methods of CardCost APIs")
     @Operation(summary = "Get payment card cost", description = "Getting a card cost of given card_number. The response is object with country & cost.")
@@ -44,7 +79,7 @@ public class CardCostController {
             @RequestBody PaymentCardCostRequest paymentCardCostRequest
     ){
         long startTime = Utils.getStartTime();
-        paymentCardCostRequest.validate();
+        phaseTimers.record(PhaseTimers.Phase.VALIDATION, () -> cardNumberRejections.validate(paymentCardCostRequest));
         String maskedCardNumber = Utils.getMaskedCardNumber(paymentCardCostRequest.getCardNumber());
         log.info("{} Received 'Payment Card Cost' request for country: '{}'", PREFIX, maskedCardNumber);
 
@@ -57,6 +92,34 @@ public class CardCostController {
         return ResponseEntity.ok(paymentCardCostResponse);
     }
 
+    @Tag(name = "Post", description = "POST methods of CardCost APIs")
+    @Operation(summary = "Get payment card costs in batch", description = "Getting card costs of a list of card_numbers. The response is a list of results in request order, failed items carry status & error.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Return of card costs, per item status inside"),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/payment-card-cost/batch")
+    public ResponseEntity<BatchPaymentCardCostResponse> getPaymentCardCosts(
+            @Parameter(
+                    description = "Request in JSON format with card_numbers list which user want to know the costs.",
+                    required = true
+            )
+            @RequestBody BatchPaymentCardCostRequest batchPaymentCardCostRequest
+    ){
+        long startTime = Utils.getStartTime();
+        phaseTimers.record(PhaseTimers.Phase.VALIDATION, batchPaymentCardCostRequest::validate);
+        int size = batchPaymentCardCostRequest.getCardNumbers().size();
+        log.info("{} Received 'Batch Payment Card Cost' request for '{}' card numbers", PREFIX, size);
+
+        List<BatchPaymentCardCostResponse.Item> results = batchPaymentCardCostService.getPaymentCardCosts(batchPaymentCardCostRequest.getCardNumbers());
+
+        log.info("{} Request 'Batch Payment Card Cost' request for '{}' card numbers executed within '{}' ms",
+                PREFIX, size, Utils.getExecutionTime(startTime));
+
+        return ResponseEntity.ok(new BatchPaymentCardCostResponse(results));
+    }
+
     @Tag(name = "Post", description = "POST methods of CardCost APIs")
     @Operation(summary = "Create a new card cost", description = "Creation of new card cost. The response is new CardCost object with id, country, cost")
     @ApiResponses(value = {
@@ -73,7 +136,7 @@ public class CardCostController {
             @RequestBody CreateCardCostRequest createCardCostRequest
     ) {
         long startTime = Utils.getStartTime();
-        createCardCostRequest.validate();
+        phaseTimers.record(PhaseTimers.Phase.VALIDATION, createCardCostRequest::validate);
         log.info("{} Received 'Create Card Cost' request for country: '{}'", PREFIX, createCardCostRequest.getCountry());
 
         CardCost cardCost = cardCostService.createCardCost(createCardCostRequest);
@@ -81,33 +144,136 @@ public class CardCostController {
         log.info("{} Request 'Create Card Cost' request for country: '{}' executed within '{}' ms",
                 PREFIX, createCardCostRequest.getCountry(), Utils.getExecutionTime(startTime));
 
-        return ResponseEntity.ok(cardCost);
+        return ResponseEntity.ok().eTag(ETags.of(cardCost)).body(cardCost);
+    }
+
+    @Tag(name = "Post", description = "POST methods of CardCost APIs")
+    @Operation(summary = "Import card costs", description = "Creating or updating card costs in one transaction from a CSV body of 'country,cost' lines or a newline delimited JSON body of {\"country\", \"cost\"} objects. The response has the created, updated, unchanged & rejected counts.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Card costs imported, rejected lines are listed in errors"),
+            @ApiResponse(responseCode = "415", description = "Body is neither text/csv nor application/x-ndjson"),
+            @ApiResponse(responseCode = "500", description = "Internal server error, nothing is imported")
+    })
+    @PostMapping(value = "/card-costs/import", consumes = {CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<CardCostImportResponse> importCardCosts(
+            @Parameter(description = "Content type of the body, text/csv or application/x-ndjson.")
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Body with one card cost per line.", required = true)
+            InputStream body
+    ) throws IOException {
+        long startTime = Utils.getStartTime();
+        CardCostImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? CardCostImportService.Format.NDJSON : CardCostImportService.Format.CSV;
+        log.info("{} Received 'Import Card Cost' request in format: '{}'", PREFIX, format);
+
+        CardCostImportResponse cardCostImportResponse;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            cardCostImportResponse = cardCostImportService.importCardCosts(reader, format);
+        }
+
+        log.info("{} Request 'Import Card Cost' request in format: '{}' executed within '{}' ms",
+                PREFIX, format, Utils.getExecutionTime(startTime));
+
+        return ResponseEntity.ok(cardCostImportResponse);
     }
 
     @Tag(name = "Get", description = "GET methods of CardCost APIs")
-    @Operation(summary = "Get all card cost", description = "Getting all card cost. The response is list with all founded card costs.")
+    @Operation(summary = "Get all card cost", description = "Getting all card cost. The response is list with all founded card costs, with an ETag of the whole list.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Return all founded card costs"),
+            @ApiResponse(responseCode = "304", description = "Card costs did not change since the given ETag"),
             @ApiResponse(responseCode = "404", description = "No card costs found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/card-costs")
-    public ResponseEntity<List<CardCost>> getAllCardCost() {
+    public ResponseEntity<List<CardCost>> getAllCardCost(
+            @Parameter(description = "ETag of the list already held, the response is 304 without body while it is current.")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         long startTime = Utils.getStartTime();
         log.info("{} Received 'Get ALl Card Cost' request.", PREFIX);
 
+        if (ifNoneMatch != null) {
+            //ids & versions only, neither the card costs nor their JSON are built for an unchanged list
+            String eTag = ETags.ofVersions(cardCostService.getAllCardCostVersions());
+            if (ETags.matches(ifNoneMatch, eTag, true)) {
+                log.info("{} Request 'Get All Card Cost' request not modified within '{}' ms",
+                        PREFIX, Utils.getExecutionTime(startTime));
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+
         List<CardCost> cardCostList = cardCostService.getAllCardCost();
 
         log.info("{} Request 'Get All Card Cost' request executed within '{}' ms",
                 PREFIX, Utils.getExecutionTime(startTime));
 
-        return ResponseEntity.ok(cardCostList);
+        return ResponseEntity.ok().eTag(ETags.ofCardCosts(cardCostList)).body(cardCostList);
+    }
+
+    @Tag(name = "Get", description = "GET methods of CardCost APIs")
+    @Operation(summary = "Get a page of card costs", description = "Getting card costs ordered by id, after the given id. The response is a page with items & next_after_id, null on the last page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Return page of card costs"),
+            @ApiResponse(responseCode = "400", description = "Invalid after_id or limit"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/card-costs/page")
+    public ResponseEntity<CardCostPageResponse> getCardCostPage(
+            @Parameter(description = "Id after which the page starts, 0 for the first page.")
+            @RequestParam(name = "after_id", defaultValue = "0") Long afterId,
+            @Parameter(description = "Maximum number of card costs in the page, up to 1000.")
+            @RequestParam(name = "limit", defaultValue = "100") int limit
+    ) {
+        long startTime = Utils.getStartTime();
+        log.info("{} Received 'Get Card Cost Page' request after id: '{}' with limit: '{}'", PREFIX, afterId, limit);
+
+        List<CardCost> cardCosts = cardCostService.getCardCostPage(afterId, limit);
+        Long nextAfterId = cardCosts.size() < limit ? null : cardCosts.get(cardCosts.size() - 1).getId();
+
+        log.info("{} Request 'Get Card Cost Page' request after id: '{}' executed within '{}' ms",
+                PREFIX, afterId, Utils.getExecutionTime(startTime));
+
+        return ResponseEntity.ok(new CardCostPageResponse(cardCosts, nextAfterId));
     }
 
     @Tag(name = "Get", description = "GET methods of CardCost APIs")
-    @Operation(summary = "Get card cost by ID", description = "Getting card cost by given id. The response is CardCost object with id, country & cost")
+    @Operation(summary = "Stream all card costs", description = "Streaming all card costs ordered by id as newline delimited JSON, one card cost per line, written while they are read from the database.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of all card costs, empty when there are none"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/card-costs/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCardCost() {
+        log.info("{} Received 'Stream All Card Cost' request.", PREFIX);
+
+        StreamingResponseBody body = outputStream -> {
+            long startTime = Utils.getStartTime();
+            //no flush per row, the generator and the servlet buffer flush as they fill up
+            ObjectWriter writer = objectMapper.writerFor(CardCost.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                long count = cardCostService.streamAllCardCost(cardCost -> {
+                    try {
+                        writer.writeValue(generator, cardCost);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.info("{} Request 'Stream All Card Cost' request streamed '{}' card costs within '{}' ms",
+                        PREFIX, count, Utils.getExecutionTime(startTime));
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Tag(name = "Get", description = "GET methods of CardCost APIs")
+    @Operation(summary = "Get card cost by ID", description = "Getting card cost by given id. The response is CardCost object with id, country & cost, with its version as ETag")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Return found card cost by Id"),
+            @ApiResponse(responseCode = "304", description = "Card cost did not change since the given ETag"),
             @ApiResponse(responseCode = "404", description = "No card costs found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -117,17 +283,23 @@ public class CardCostController {
                     description = "Id of card cost to be retrieved.",
                     required = true
             )
-            @PathVariable Long cardCostId
+            @PathVariable Long cardCostId,
+            @Parameter(description = "ETag of the card cost already held, the response is 304 without body while it is current.")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         long startTime = Utils.getStartTime();
         log.info("{} Received 'Get Card Cost' request for cardCostId: '{}'", PREFIX, cardCostId);
 
         CardCost cardCost = cardCostService.getCardCostById(cardCostId);
+        String eTag = ETags.of(cardCost);
 
         log.info("{} Request 'Get Card Cost' request for cardCostId: '{}' executed within '{}' ms",
                 PREFIX, cardCostId, Utils.getExecutionTime(startTime));
 
-        return ResponseEntity.ok(cardCost);
+        if (ETags.matches(ifNoneMatch, eTag, true)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(cardCost);
     }
 
     @Tag(name = "Put", description = "PUT method of CardCost APIs")
@@ -136,6 +308,7 @@ public class CardCostController {
             @ApiResponse(responseCode = "200", description = "Update & return updated card cost"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
             @ApiResponse(responseCode = "404", description = "Card cost already exists"),
+            @ApiResponse(responseCode = "412", description = "Card cost changed since the given ETag"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PutMapping("/card-costs/{cardCostId}")
@@ -149,18 +322,20 @@ public class CardCostController {
                     description = "Request in JSON format with field that have to be updated.",
                     required = true
             )
-            @RequestBody UpdateCardCostRequest updateCardCostRequest
+            @RequestBody UpdateCardCostRequest updateCardCostRequest,
+            @Parameter(description = "ETag of the card cost the update is based on, the response is 412 when it changed meanwhile.")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         long startTime = Utils.getStartTime();
-        updateCardCostRequest.validate();
+        phaseTimers.record(PhaseTimers.Phase.VALIDATION, updateCardCostRequest::validate);
         log.info("{} Received 'Update Card Cost' request for cardCostId: '{}'", PREFIX, cardCostId);
 
-        CardCost updatedCardCost = cardCostService.updateCardCostById(cardCostId, updateCardCostRequest);
+        CardCost updatedCardCost = cardCostService.updateCardCostById(cardCostId, updateCardCostRequest, ifMatch);
 
         log.info("{} Request 'Update Card Cost' request for cardCostId: '{}' executed within '{}' ms",
                 PREFIX, cardCostId, Utils.getExecutionTime(startTime));
 
-        return ResponseEntity.ok(updatedCardCost);
+        return ResponseEntity.ok().eTag(ETags.of(updatedCardCost)).body(updatedCardCost);
     }
 
     @Tag(name = "Delete", description = "DELETE method of CardCost APIs")
@@ -168,6 +343,7 @@ public class CardCostController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Return no content if card cost removed"),
             @ApiResponse(responseCode = "404", description = "Card cost already exists"),
+            @ApiResponse(responseCode = "412", description = "Card cost changed since the given ETag"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @DeleteMapping("/card-costs/{cardCostId}")
@@ -176,12 +352,14 @@ public class CardCostController {
                     description = "Id of card cost to be deleted",
                     required = true
             )
-            @PathVariable Long cardCostId
+            @PathVariable Long cardCostId,
+            @Parameter(description = "ETag of the card cost the delete is based on, the response is 412 when it changed meanwhile.")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         long startTime = Utils.getStartTime();
         log.info("{} Received 'Delete Card Cost' request for cardCostId: '{}'", PREFIX, cardCostId);
 
-        cardCostService.deleteCardCostById(cardCostId);
+        cardCostService.deleteCardCostById(cardCostId, ifMatch);
 
         log.info("{} Request 'Delete Card Cost' request for cardCostId: '{}' executed within '{}' ms",
                 PREFIX, cardCostId, Utils.getExecutionTime(startTime));
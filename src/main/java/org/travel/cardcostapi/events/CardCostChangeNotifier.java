@@ -0,0 +1,195 @@
+package org.travel.cardcostapi.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.configs.CardCostNotifyProperties;
+import org.travel.cardcostapi.models.CardCost;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Keeps the card cost lookup table of every instance in sync through Postgres LISTEN/NOTIFY.
+ * <p>
+ * Every card cost change is sent with pg_notify inside the transaction that makes it, Postgres delivers it to
+ * the listening instances once that transaction commits, and not at all when it rolls back. Each instance
+ * listens on a dedicated connection and applies the changed rows of the other instances to its table. The
+ * table is fully reloaded whenever the listening connection is (re)opened, since notifications sent meanwhile
+ * are lost, and every resyncInterval, which bounds how long a missed notification leaves it stale.
+ * Disabled on any other database. Started with the context like the lookup table, so creating it needs no database.
+ */
+@Log4j2
+@Component
+public class CardCostChangeNotifier implements SmartLifecycle {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private CardCostNotifyProperties cardCostNotifyProperties;
+    @Autowired
+    private CardCostLookupTable cardCostLookupTable;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //tells the changes of this instance, already applied after commit, from the others
+    private final String origin = UUID.randomUUID().toString();
+    private volatile boolean enabled;
+    private volatile boolean running;
+    private Thread listener;
+
+    @Override
+    public void start() {
+        if (!cardCostNotifyProperties.isEnabled()) {
+            log.info("{} Card cost notifications are disabled, instances only see their own changes.", PREFIX);
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                log.info("{} Card cost notifications need Postgres, instances only see their own changes.", PREFIX);
+                return;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot check the database of card cost notifications", e);
+        }
+
+        enabled = true;
+        running = true;
+        listener = new Thread(this::listen, "card-cost-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    //part of the transaction: a failed notify fails the change, as Postgres aborts the transaction anyway
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onCardCostChanged(CardCostChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        CardCost cardCost = event.getCardCost();
+        Notification notification = cardCost == null
+                ? new Notification(origin, event.getPreviousCountry(), null, null, null, null)
+                : new Notification(origin, event.getPreviousCountry(), cardCost.getId(), cardCost.getCountry(), cardCost.getCost(), cardCost.getVersion());
+        try {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class,
+                    cardCostNotifyProperties.getChannel(), objectMapper.writeValueAsString(notification));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize card cost notification", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(cardCostNotifyProperties.getPollInterval().multipliedBy(2).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //same phase as the lookup table, before the web server
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    //applies a change notified by another instance, anything unreadable is skipped
+    void handle(String payload) {
+        Notification notification;
+        try {
+            notification = objectMapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException e) {
+            log.warn("{} Ignored card cost notification: '{}'. Cause: '{}'", PREFIX, payload, e.getOriginalMessage());
+            return;
+        }
+        if (origin.equals(notification.origin())) {
+            return;
+        }
+
+        CardCost cardCost = notification.country() == null ? null
+                : new CardCost(notification.id(), notification.country(), notification.cost(), notification.version());
+        cardCostLookupTable.onCardCostChanged(new CardCostChangedEvent(notification.previousCountry(), cardCost));
+        log.debug("{} Applied card cost change of country: '{}' from another instance.", PREFIX,
+                cardCost != null ? cardCost.getCountry() : notification.previousCountry());
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + cardCostNotifyProperties.getChannel().replace("\"", "\"\"") + "\"");
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                cardCostLookupTable.reload();
+                log.info("{} Listening for card cost changes on '{}'", PREFIX, cardCostNotifyProperties.getChannel());
+
+                int pollMillis = (int) Math.max(1, cardCostNotifyProperties.getPollInterval().toMillis());
+                long lastResync = System.nanoTime();
+                long lastValidation = lastResync;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+
+                    long now = System.nanoTime();
+                    if (now - lastResync >= cardCostNotifyProperties.getResyncInterval().toNanos()) {
+                        cardCostLookupTable.reload();
+                        lastResync = now;
+                    }
+                    if (now - lastValidation >= cardCostNotifyProperties.getValidationInterval().toNanos()) {
+                        //a silently dropped connection receives nothing and raises nothing
+                        if (!connection.isValid((int) Math.max(1, cardCostNotifyProperties.getPollInterval().toSeconds()))) {
+                            throw new SQLException("listening connection is no longer valid");
+                        }
+                        lastValidation = now;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("{} Stopped listening for card cost changes, retrying in '{}'. Cause: '{}'", PREFIX,
+                        cardCostNotifyProperties.getReconnectDelay(), e.getMessage());
+                try {
+                    Thread.sleep(cardCostNotifyProperties.getReconnectDelay());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    record Notification(String origin, String previousCountry, Long id, String country, Double cost, Long version) {
+    }
+}
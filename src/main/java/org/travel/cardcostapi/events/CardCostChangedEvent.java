@@ -0,0 +1,28 @@
+package org.travel.cardcostapi.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.travel.cardcostapi.models.CardCost;
+
+/**
+ * Published by write operations on card costs, handled once the surrounding transaction commits.
+ * previousCountry is null for a create, cardCost is null for a delete.
+ */
+@Data
+@AllArgsConstructor
+public class CardCostChangedEvent {
+    private String previousCountry;
+    private CardCost cardCost;
+
+    public static CardCostChangedEvent created(CardCost cardCost) {
+        return new CardCostChangedEvent(null, cardCost);
+    }
+
+    public static CardCostChangedEvent updated(String previousCountry, CardCost cardCost) {
+        return new CardCostChangedEvent(previousCountry, cardCost);
+    }
+
+    public static CardCostChangedEvent deleted(String previousCountry) {
+        return new CardCostChangedEvent(previousCountry, null);
+    }
+}
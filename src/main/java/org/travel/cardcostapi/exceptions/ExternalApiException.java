@@ -1,10 +1,46 @@
 package org.travel.cardcostapi.exceptions;
 
+import java.time.Duration;
+
 /**
  * @author asafronov
  */
 public class ExternalApiException extends RuntimeException {
+    private final int statusCode;
+    private final Duration retryAfter;
+
     public ExternalApiException(String message) {
+        this(message, 0);
+    }
+
+    /**
+     * @param statusCode HTTP status returned by the external API, 0 when no response was received
+     */
+    public ExternalApiException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    /**
+     * @param retryAfter delay requested by the external API through its Retry-After header, null when absent
+     */
+    public ExternalApiException(String message, int statusCode, Duration retryAfter) {
         super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return true when the external API is unreachable or failing, false when it rejected this particular request
+     */
+    public boolean isUpstreamFailure() {
+        return statusCode == 0 || statusCode == 429 || statusCode >= 500;
     }
 }
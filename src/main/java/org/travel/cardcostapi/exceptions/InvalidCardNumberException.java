@@ -0,0 +1,19 @@
+package org.travel.cardcostapi.exceptions;
+
+import org.travel.cardcostapi.utils.CardNumberValidator;
+
+/**
+ * Card number rejected by local validation, answered as any other bad request.
+ */
+public class InvalidCardNumberException extends BadRequestException {
+    private final CardNumberValidator.Rejection rejection;
+
+    public InvalidCardNumberException(CardNumberValidator.Rejection rejection) {
+        super(rejection.getMessage());
+        this.rejection = rejection;
+    }
+
+    public CardNumberValidator.Rejection getRejection() {
+        return rejection;
+    }
+}
@@ -0,0 +1,10 @@
+package org.travel.cardcostapi.exceptions;
+
+/**
+ * Conditional request (If-Match) whose ETag no longer matches the current card cost.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package org.travel.cardcostapi.exceptions;
+
+import java.time.Duration;
+
+/**
+ * Request is rejected without being attempted, clients should retry after the given duration.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
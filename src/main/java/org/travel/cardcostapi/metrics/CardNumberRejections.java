@@ -0,0 +1,47 @@
+package org.travel.cardcostapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.exceptions.InvalidCardNumberException;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.utils.CardNumberValidator;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Card numbers rejected before any BIN lookup, published as the 'cardcost.card.rejected' counter tagged with
+ * the reason.
+ */
+@Component
+public class CardNumberRejections {
+    public static final String METRIC_NAME = "cardcost.card.rejected";
+
+    private final Map<CardNumberValidator.Rejection, Counter> counters = new EnumMap<>(CardNumberValidator.Rejection.class);
+
+    public CardNumberRejections(MeterRegistry meterRegistry) {
+        for (CardNumberValidator.Rejection rejection : CardNumberValidator.Rejection.values()) {
+            counters.put(rejection, Counter.builder(METRIC_NAME)
+                    .description("Card numbers rejected by local validation")
+                    .tag("reason", rejection.getTag())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Validates the request, counting the reason when its card number is rejected.
+     */
+    public void validate(PaymentCardCostRequest paymentCardCostRequest) {
+        try {
+            paymentCardCostRequest.validate();
+        } catch (InvalidCardNumberException e) {
+            counters.get(e.getRejection()).increment();
+            throw e;
+        }
+    }
+
+    public double count(CardNumberValidator.Rejection rejection) {
+        return counters.get(rejection).count();
+    }
+}
@@ -0,0 +1,67 @@
+package org.travel.cardcostapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency of the phases a request goes through, published as the 'cardcost.phase' timer tagged with the phase.
+ * Timers publish a percentile histogram, so p99 can be aggregated across instances; end to end latency per
+ * endpoint is the 'http.server.requests' timer.
+ */
+@Component
+public class PhaseTimers {
+    public static final String METRIC_NAME = "cardcost.phase";
+
+    public enum Phase {
+        VALIDATION("validation"),
+        BIN_LOOKUP("bin_lookup"),
+        BIN_INFO_LOOKUP("bin_info_lookup"),
+        BINLIST_CALL("binlist_call"),
+        DB_LOOKUP("db_lookup"),
+        SERIALIZATION("serialization");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+
+    public PhaseTimers(MeterRegistry meterRegistry) {
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder(METRIC_NAME)
+                    .description("Latency of a request phase")
+                    .tag("phase", phase.getTag())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T record(Phase phase, Supplier<T> supplier) {
+        return timers.get(phase).record(supplier);
+    }
+
+    public void record(Phase phase, Runnable runnable) {
+        timers.get(phase).record(runnable);
+    }
+
+    public void record(Phase phase, long durationNanos) {
+        timers.get(phase).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Timer timer(Phase phase) {
+        return timers.get(phase);
+    }
+}
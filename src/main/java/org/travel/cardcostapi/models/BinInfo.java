@@ -0,0 +1,28 @@
+package org.travel.cardcostapi.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * BIN lookup result shared by all instances, so a BIN is fetched from binlist once per fleet.
+ */
+@Entity
+@Table(name = "bin_info")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BinInfo {
+    @Id
+    @Column(length = 9)
+    private String bin;
+    @Column(nullable = false, length = 2)
+    private String country;
+    private String scheme;
+    private String type;
+    @Column(nullable = false)
+    private Instant fetchedAt;
+}
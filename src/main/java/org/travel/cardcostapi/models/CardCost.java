@@ -6,12 +6,20 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = CardCost.COUNTRY_CONSTRAINT, columnNames = "country"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class CardCost {
+    public static final String COUNTRY_CONSTRAINT = "uk_card_cost_country";
+    public static final String ID_SEQUENCE = "card_cost_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    //ids come from a pooled sequence so inserts can be batched, IDENTITY would need one round trip per row;
+    //CardCostIdSequence moves it above the ids of a table created with IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     @Column(nullable = false)
     private String country;
@@ -0,0 +1,7 @@
+package org.travel.cardcostapi.models;
+
+/**
+ * Id and version of a card cost, all that is read to tell whether card costs changed.
+ */
+public record CardCostVersion(Long id, Long version) {
+}
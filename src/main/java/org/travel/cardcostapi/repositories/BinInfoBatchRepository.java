@@ -0,0 +1,12 @@
+package org.travel.cardcostapi.repositories;
+
+import org.travel.cardcostapi.models.BinInfo;
+
+import java.util.List;
+
+public interface BinInfoBatchRepository {
+    /**
+     * Inserts the results in one JDBC batch, a BIN already stored is only overwritten by a newer result.
+     */
+    void upsertAll(List<BinInfo> binInfos);
+}
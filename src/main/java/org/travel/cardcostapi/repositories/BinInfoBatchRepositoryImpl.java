@@ -0,0 +1,51 @@
+package org.travel.cardcostapi.repositories;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.travel.cardcostapi.models.BinInfo;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes bin_info rows with plain JDBC: saveAll on an entity with an assigned id merges, one select per row.
+ */
+public class BinInfoBatchRepositoryImpl implements BinInfoBatchRepository {
+    //atomic on Postgres, a BIN inserted concurrently by another instance is updated instead of failing the batch
+    static final String POSTGRES_UPSERT_SQL = "INSERT INTO bin_info (bin, country, scheme, type, fetched_at) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (bin) DO UPDATE SET country = EXCLUDED.country, scheme = EXCLUDED.scheme, type = EXCLUDED.type, fetched_at = EXCLUDED.fetched_at "
+            + "WHERE bin_info.fetched_at < EXCLUDED.fetched_at";
+    static final String MERGE_SQL = "MERGE INTO bin_info t USING (VALUES (CAST(? AS VARCHAR(9)), CAST(? AS VARCHAR(2)), CAST(? AS VARCHAR(255)), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP WITH TIME ZONE))) s (bin, country, scheme, type, fetched_at) ON t.bin = s.bin "
+            + "WHEN MATCHED AND t.fetched_at < s.fetched_at THEN UPDATE SET country = s.country, scheme = s.scheme, type = s.type, fetched_at = s.fetched_at "
+            + "WHEN NOT MATCHED THEN INSERT (bin, country, scheme, type, fetched_at) VALUES (s.bin, s.country, s.scheme, s.type, s.fetched_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile String upsertSql;
+
+    @Override
+    public void upsertAll(List<BinInfo> binInfos) {
+        jdbcTemplate.batchUpdate(upsertSql(), binInfos, binInfos.size(), (statement, binInfo) -> {
+            statement.setString(1, binInfo.getBin());
+            statement.setString(2, binInfo.getCountry());
+            statement.setString(3, binInfo.getScheme());
+            statement.setString(4, binInfo.getType());
+            statement.setTimestamp(5, Timestamp.from(binInfo.getFetchedAt()));
+        });
+    }
+
+    //chosen on the first write rather than on startup, which needs no database
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            Boolean postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.isWrapperFor(PGConnection.class));
+            sql = Boolean.TRUE.equals(postgres) ? POSTGRES_UPSERT_SQL : MERGE_SQL;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+}
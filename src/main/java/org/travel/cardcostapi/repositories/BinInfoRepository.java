@@ -0,0 +1,9 @@
+package org.travel.cardcostapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.travel.cardcostapi.models.BinInfo;
+
+@Repository
+public interface BinInfoRepository extends JpaRepository<BinInfo, String>, BinInfoBatchRepository {
+}
@@ -0,0 +1,64 @@
+package org.travel.cardcostapi.repositories;
+
+import lombok.extern.log4j.Log4j2;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.models.CardCost;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Moves card_cost_seq above the highest card cost id on startup. Card cost ids used to come from an IDENTITY
+ * column, and ddl-auto=update creates the sequence of an existing table starting at 1, so without this the first
+ * inserts would reuse taken ids. The sequence is only ever moved forward, never below where another instance
+ * already is. Postgres only, started with the context like the lookup table, so creating it needs no database.
+ */
+@Log4j2
+@Component
+public class CardCostIdSequence implements SmartLifecycle {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+    //the pooled optimizer hands out up to ID_ALLOCATION_SIZE ids below the value it reads, they must all be free
+    static final String ADVANCE_SQL = "SELECT setval('" + CardCost.ID_SEQUENCE + "', GREATEST((SELECT last_value FROM " + CardCost.ID_SEQUENCE + "), "
+            + "(SELECT COALESCE(MAX(id), 0) FROM card_cost) + " + CardCost.ID_ALLOCATION_SIZE + "))";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                Long value = jdbcTemplate.queryForObject(ADVANCE_SQL, Long.class);
+                log.info("{} '{}' is at '{}'", PREFIX, CardCost.ID_SEQUENCE, value);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot check the database of " + CardCost.ID_SEQUENCE, e);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //before the web server, like the lookup table
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -1,16 +1,49 @@
 package org.travel.cardcostapi.repositories;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CardCostRepository extends JpaRepository<CardCost, Long> {
 
     @Lock(LockModeType.OPTIMISTIC)
     Optional<CardCost> findById(Long cardCostId);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    Optional<CardCost> readById(Long cardCostId);
     Optional<CardCost> findByCountry(String country);
+    List<CardCost> findByCountryIn(Collection<String> countries);
+
+    //keyset pagination, served by the primary key index whatever the page number
+    List<CardCost> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    //forward-only cursor, rows are fetched from the database in batches while the stream is consumed
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from CardCost c order by c.id")
+    Stream<CardCost> streamAllByOrderByIdAsc();
+
+    //findAll in a read-write transaction, so it runs on the primary and not on a lagging replica
+    @Transactional
+    @Query("select c from CardCost c")
+    List<CardCost> findAllOnPrimary();
+
+    //two columns and no entities, enough to compute the ETag of all card costs
+    @Query("select new org.travel.cardcostapi.models.CardCostVersion(c.id, c.version) from CardCost c")
+    List<CardCostVersion> findAllVersions();
 }
@@ -0,0 +1,32 @@
+package org.travel.cardcostapi.requests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+
+import java.util.List;
+
+/**
+ * Card numbers are validated one by one by the batch, invalid ones are reported per item.
+ */
+@Data
+public class BatchPaymentCardCostRequest {
+    public static final int MAX_CARD_NUMBERS = 1000;
+
+    @NotNull
+    @NotEmpty
+    @Size(max = MAX_CARD_NUMBERS)
+    @JsonProperty("card_numbers")
+    private List<String> cardNumbers;
+
+    public void validate(){
+        if (cardNumbers == null || cardNumbers.isEmpty())
+            throw new BadRequestException("CardNumbers cannot be null or empty");
+
+        if (cardNumbers.size() > MAX_CARD_NUMBERS)
+            throw new BadRequestException("CardNumbers cannot contain more than " + MAX_CARD_NUMBERS + " card numbers");
+    }
+}
@@ -5,7 +5,8 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
-import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.exceptions.InvalidCardNumberException;
+import org.travel.cardcostapi.utils.CardNumberValidator;
 
 /**
  * @author asafronov
@@ -14,15 +15,14 @@ import org.travel.cardcostapi.exceptions.BadRequestException;
 public class PaymentCardCostRequest {
     @NotNull
     @NotEmpty
-    @Size(min = 8, max = 19)
+    @Size(min = CardNumberValidator.MIN_LENGTH, max = CardNumberValidator.MAX_LENGTH)
     @JsonProperty("card_number")
     private String cardNumber;
 
+    //rejects what binlist could not resolve: bad length, non digits, failed Luhn checksum, wrong length for the scheme
     public void validate(){
-        if (cardNumber == null || cardNumber.trim().isEmpty())
-            throw new BadRequestException("CardNumber cannot be null or empty");
-
-        if(cardNumber.length() < 8 || cardNumber.length() > 19)
-            throw new BadRequestException("CardNumber must be greater than 8 and less than 19 digits");
+        CardNumberValidator.Rejection rejection = CardNumberValidator.check(cardNumber);
+        if (rejection != null)
+            throw new InvalidCardNumberException(rejection);
     }
 }
@@ -0,0 +1,42 @@
+package org.travel.cardcostapi.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Results are in the order of the requested card numbers, failed items carry status & error instead of a cost.
+ */
+@Data
+@AllArgsConstructor
+public class BatchPaymentCardCostResponse {
+    @JsonProperty("results")
+    private List<Item> results;
+
+    @Data
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+        @JsonProperty("card_number")
+        private String cardNumber;
+        @JsonProperty("status")
+        private int status;
+        @JsonProperty("country")
+        private String country;
+        @JsonProperty("cost")
+        private Double cost;
+        @JsonProperty("error")
+        private String error;
+
+        public static Item success(String maskedCardNumber, String country, double cost) {
+            return new Item(maskedCardNumber, 200, country, cost, null);
+        }
+
+        public static Item failure(String maskedCardNumber, int status, String error) {
+            return new Item(maskedCardNumber, status, null, null, error);
+        }
+    }
+}
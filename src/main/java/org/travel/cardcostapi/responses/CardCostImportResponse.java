@@ -0,0 +1,35 @@
+package org.travel.cardcostapi.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a card cost import. Rejected lines are skipped and do not fail the import, errors lists the first
+ * of them with their line number.
+ */
+@Data
+@AllArgsConstructor
+public class CardCostImportResponse {
+    @JsonProperty("created")
+    private int created;
+    @JsonProperty("updated")
+    private int updated;
+    @JsonProperty("unchanged")
+    private int unchanged;
+    @JsonProperty("rejected")
+    private int rejected;
+    @JsonProperty("errors")
+    private List<LineError> errors;
+
+    @Data
+    @AllArgsConstructor
+    public static class LineError {
+        @JsonProperty("line")
+        private int line;
+        @JsonProperty("error")
+        private String error;
+    }
+}
@@ -0,0 +1,21 @@
+package org.travel.cardcostapi.responses;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.travel.cardcostapi.models.CardCost;
+
+import java.util.List;
+
+/**
+ * One page of card costs ordered by id. The next page is requested with after_id = next_after_id,
+ * which is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class CardCostPageResponse {
+    @JsonProperty("items")
+    private List<CardCost> items;
+    @JsonProperty("next_after_id")
+    private Long nextAfterId;
+}
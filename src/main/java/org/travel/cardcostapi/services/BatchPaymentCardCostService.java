@@ -0,0 +1,119 @@
+package org.travel.cardcostapi.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ResourceNotFoundException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.metrics.CardNumberRejections;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.responses.BatchPaymentCardCostResponse;
+import org.travel.cardcostapi.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Resolves many card numbers at once: card numbers are de-duplicated by BIN, or by the longer prefix the offline
+ * BIN ranges are matched on, and every unique one is resolved once on the shared batch lookup executor, which
+ * bounds the parallelism across all running batches. binlist calls made for a batch yield to interactive lookups
+ * under the outbound rate limit.
+ */
+@Log4j2
+@Service
+public class BatchPaymentCardCostService {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private CardCostService cardCostService;
+    @Autowired
+    @Qualifier("batchLookupExecutor")
+    private AsyncTaskExecutor batchLookupExecutor;
+    @Autowired
+    private CardNumberRejections cardNumberRejections;
+    @Autowired
+    private BinRangeDatabase binRangeDatabase;
+
+    public List<BatchPaymentCardCostResponse.Item> getPaymentCardCosts(List<String> cardNumbers) {
+        BatchPaymentCardCostResponse.Item[] results = new BatchPaymentCardCostResponse.Item[cardNumbers.size()];
+        Map<String, List<Integer>> indexesByBin = new LinkedHashMap<>();
+        //card numbers sharing a binlist BIN may still fall in different offline ranges
+        int keyLength = Math.max(CardCostService.BINLIST_BIN_LENGTH, binRangeDatabase.getPrefixLength());
+
+        for (int i = 0; i < cardNumbers.size(); i++) {
+            PaymentCardCostRequest paymentCardCostRequest = new PaymentCardCostRequest();
+            paymentCardCostRequest.setCardNumber(cardNumbers.get(i));
+            try {
+                cardNumberRejections.validate(paymentCardCostRequest);
+            } catch (BadRequestException e) {
+                results[i] = BatchPaymentCardCostResponse.Item.failure(maskSafely(cardNumbers.get(i)), HttpStatus.BAD_REQUEST.value(), e.getMessage());
+                continue;
+            }
+            String bin = cardNumbers.get(i).substring(0, Math.min(keyLength, cardNumbers.get(i).length()));
+            indexesByBin.computeIfAbsent(bin, key -> new ArrayList<>()).add(i);
+        }
+        log.info("{} Resolving '{}' card numbers with '{}' unique BINs", PREFIX, cardNumbers.size(), indexesByBin.size());
+
+        Map<String, CompletableFuture<CardCost>> lookups = new LinkedHashMap<>();
+        indexesByBin.forEach((bin, indexes) -> {
+            PaymentCardCostRequest paymentCardCostRequest = new PaymentCardCostRequest();
+            paymentCardCostRequest.setCardNumber(cardNumbers.get(indexes.get(0)));
+            lookups.put(bin, CompletableFuture.supplyAsync(() -> cardCostService.getPaymentCardCost(paymentCardCostRequest, RateLimiter.Priority.BATCH), batchLookupExecutor));
+        });
+
+        lookups.forEach((bin, lookup) -> {
+            CardCost cardCost = null;
+            RuntimeException failure = null;
+            try {
+                cardCost = lookup.join();
+            } catch (CompletionException e) {
+                failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+
+            for (int index : indexesByBin.get(bin)) {
+                String maskedCardNumber = Utils.getMaskedCardNumber(cardNumbers.get(index));
+                results[index] = failure == null
+                        ? BatchPaymentCardCostResponse.Item.success(maskedCardNumber, cardCost.getCountry(), cardCost.getCost())
+                        : BatchPaymentCardCostResponse.Item.failure(maskedCardNumber, statusOf(failure).value(), failure.getMessage());
+            }
+        });
+
+        return Arrays.asList(results);
+    }
+
+    static HttpStatus statusOf(RuntimeException exception) {
+        if (exception instanceof BadRequestException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (exception instanceof ResourceNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (exception instanceof ExternalApiException) {
+            return HttpStatus.BAD_GATEWAY;
+        }
+        if (exception instanceof ServiceUnavailableException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        log.error("Unexpected error while resolving batch item. Cause: '{}'", exception.getMessage());
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private static String maskSafely(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 8) {
+            return cardNumber == null ? null : "*".repeat(cardNumber.length());
+        }
+        return Utils.getMaskedCardNumber(cardNumber);
+    }
+}
@@ -0,0 +1,155 @@
+package org.travel.cardcostapi.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.configs.BinInfoProperties;
+import org.travel.cardcostapi.models.BinInfo;
+import org.travel.cardcostapi.repositories.BinInfoRepository;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BIN lookup results shared by all instances through the bin_info table. Results fetched from binlist are
+ * written behind the request: they are queued, de-duplicated by BIN, and saved in batches by a single
+ * background thread, so a slow or unavailable database never delays a payment card cost lookup.
+ * Reads and writes are best effort, a failure only means binlist is asked again.
+ */
+@Log4j2
+@Component
+public class BinInfoTable {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private BinInfoRepository binInfoRepository;
+    @Autowired
+    private BinInfoProperties binInfoProperties;
+    @Autowired
+    private BinCacheProperties binCacheProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final Map<String, BinInfo> pending = new ConcurrentHashMap<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private ScheduledExecutorService writer;
+    private volatile boolean enabled;
+
+    @PostConstruct
+    public void init() {
+        if (!binInfoProperties.isEnabled()) {
+            log.info("{} bin_info table is disabled, BINs are not shared between instances.", PREFIX);
+            return;
+        }
+        FunctionCounter.builder("bin.info.written", written, LongAdder::sum)
+                .description("BIN lookup results written to the bin_info table")
+                .register(meterRegistry);
+        FunctionCounter.builder("bin.info.dropped", dropped, LongAdder::sum)
+                .description("BIN lookup results not written to the bin_info table")
+                .register(meterRegistry);
+        Gauge.builder("bin.info.pending", pending, Map::size)
+                .description("BIN lookup results waiting to be written to the bin_info table")
+                .register(meterRegistry);
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bin-info-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long delay = binInfoProperties.getWriteBehindDelay().toMillis();
+        writer.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+        enabled = true;
+    }
+
+    /**
+     * @return the result of the BIN if another lookup stored it within the BIN cache TTL, empty when disabled
+     */
+    public Optional<BinInfo> find(String bin) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            Instant oldest = clock.instant().minus(binCacheProperties.getTtl());
+            return binInfoRepository.findById(bin).filter(binInfo -> binInfo.getFetchedAt().isAfter(oldest));
+        } catch (RuntimeException e) {
+            log.warn("{} Cannot read BIN: '{}' from bin_info. Cause: '{}'", PREFIX, bin, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Queues a result fetched from binlist now, to be written by the background thread.
+     */
+    public void save(String bin, CardInfoResponse cardInfoResponse) {
+        if (!enabled) {
+            return;
+        }
+        BinInfo binInfo = new BinInfo(bin, cardInfoResponse.getCountry().getAlpha2(), cardInfoResponse.getScheme(),
+                cardInfoResponse.getType(), clock.instant());
+        if (pending.size() >= binInfoProperties.getMaxPending() && !pending.containsKey(bin)) {
+            dropped.increment();
+            return;
+        }
+        pending.put(bin, binInfo);
+    }
+
+    /**
+     * Writes the queued results, batchSize of them per transaction.
+     */
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<BinInfo> batch = new ArrayList<>(binInfoProperties.getBatchSize());
+            Iterator<Map.Entry<String, BinInfo>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < binInfoProperties.getBatchSize()) {
+                Map.Entry<String, BinInfo> entry = iterator.next();
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.add(entry.getValue());
+                }
+            }
+            write(batch);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            flush();
+        }
+    }
+
+    //one batched upsert, a BIN another instance stored meanwhile keeps the newer of the two results
+    private void write(List<BinInfo> batch) {
+        try {
+            binInfoRepository.upsertAll(batch);
+            written.add(batch.size());
+        } catch (RuntimeException e) {
+            log.warn("{} Cannot write '{}' BINs to bin_info. Cause: '{}'", PREFIX, batch.size(), e.getMessage());
+            dropped.add(batch.size());
+        }
+    }
+}
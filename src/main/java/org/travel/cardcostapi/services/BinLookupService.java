@@ -0,0 +1,182 @@
+package org.travel.cardcostapi.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.travel.cardcostapi.caches.BinCountryCache;
+import org.travel.cardcostapi.caches.BinCountryStore;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.clients.BinLookupProvider;
+import org.travel.cardcostapi.clients.CircuitBreaker;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.configs.CircuitBreakerProperties;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.metrics.PhaseTimers;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.utils.SingleFlight;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the issuing country of a card number: offline BIN ranges first, then the BIN cache, then the bin_info
+ * table shared with the other instances, then the BIN lookup providers: binlist and any additional ones, see
+ * {@link org.travel.cardcostapi.clients.BinProviderRouter}.
+ * <p>
+ * Lookups go through a circuit breaker, binlist calls also through its rate limiter and bulkhead within the router,
+ * see {@link org.travel.cardcostapi.clients.ThrottledBinLookupProvider}. While the providers are failing, the breaker
+ * is open, or no provider can take the lookup, the lookup falls back to the last known country of the BIN and then
+ * to the 'OTHERS' cost, when enabled, and otherwise fails fast with {@link ServiceUnavailableException}.
+ */
+@Log4j2
+@Service
+public class BinLookupService {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private BinLookupProvider binLookupProvider;
+    @Autowired
+    private BinCountryCache binCountryCache;
+    @Autowired
+    private BinCountryStore binCountryStore;
+    @Autowired
+    private BinRangeDatabase binRangeDatabase;
+    @Autowired
+    private BinInfoTable binInfoTable;
+    @Autowired
+    private SingleFlight<String, CardInfoResponse.Country> binLookups;
+    @Autowired
+    private CircuitBreaker binlistCircuitBreaker;
+    @Autowired
+    private CircuitBreakerProperties circuitBreakerProperties;
+    @Autowired
+    private PhaseTimers phaseTimers;
+
+    /**
+     * @return alpha-2 country code, or {@link CardCostLookupTable#OTHERS} when served in degraded mode
+     */
+    public String findCountryCode(String cardNumber, RateLimiter.Priority priority){
+        String countryCode = binRangeDatabase.findCountry(cardNumber);
+        if(countryCode != null) {
+            return countryCode;
+        }
+
+        String bin = cardNumber.substring(0, CardCostService.BINLIST_BIN_LENGTH);
+        return binCountryCache.get(bin).orElseGet(() -> lookupCountry(bin, priority)).getAlpha2();
+    }
+
+    //concurrent misses of the same BIN and priority share a single call, the cache is checked again by the caller
+    //that runs it; an interactive caller never waits behind a batch call held back by the quota
+    private CardInfoResponse.Country lookupCountry(String bin, RateLimiter.Priority priority){
+        return binLookups.execute(bin + ":" + priority, () -> binCountryCache.get(bin)
+                .or(() -> findShared(bin))
+                .orElseGet(() -> fetchCountry(bin, priority)));
+    }
+
+    //the BIN may have been fetched by another instance, it is then trusted for what is left of its TTL
+    private Optional<CardInfoResponse.Country> findShared(String bin){
+        return phaseTimers.record(PhaseTimers.Phase.BIN_INFO_LOOKUP, () -> binInfoTable.find(bin)).map(binInfo -> {
+            CardInfoResponse.Country country = new CardInfoResponse.Country();
+            country.setAlpha2(binInfo.getCountry());
+            Duration age = Duration.between(binInfo.getFetchedAt(), Instant.now());
+            binCountryCache.restore(bin, country, age.isNegative() ? Duration.ZERO : age);
+            return country;
+        });
+    }
+
+    private CardInfoResponse.Country fetchCountry(String bin, RateLimiter.Priority priority){
+        if(!binlistCircuitBreaker.tryAcquirePermission()) {
+            log.warn("{} Circuit breaker is '{}', not calling external API for BIN: '{}'", PREFIX, binlistCircuitBreaker.getState(), bin);
+            return fallback(bin, new ServiceUnavailableException("External API is unavailable. Please try again later.",
+                    binlistCircuitBreaker.getRemainingOpenDuration()));
+        }
+
+        log.info("{} Sending request to external API with BIN: '{}'", PREFIX, bin);
+        //the call is timed from its send, a wait for the quota or a bulkhead slot is not a slow call
+        AtomicLong sentAt = new AtomicLong(System.nanoTime());
+        CardInfoResponse cardInfoResponse;
+        try {
+            cardInfoResponse = join(binLookupProvider.lookup(bin, priority, () -> sentAt.set(System.nanoTime())));
+        } catch (ServiceUnavailableException e) {
+            //no provider took the lookup, its quota or bulkhead rejected it, not a sign of an unhealthy provider
+            phaseTimers.record(PhaseTimers.Phase.BINLIST_CALL, System.nanoTime() - sentAt.get());
+            binlistCircuitBreaker.releasePermission();
+            log.warn("{} External API lookup rejected for BIN: '{}'. Cause: '{}'", PREFIX, bin, e.getMessage());
+            return fallback(bin, e);
+        } catch (ExternalApiException e) {
+            phaseTimers.record(PhaseTimers.Phase.BINLIST_CALL, System.nanoTime() - sentAt.get());
+            if(e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                //a provider without a rate limiter of its own ran out of quota
+                binlistCircuitBreaker.releasePermission();
+                return fallback(bin, e);
+            }
+            if(!e.isUpstreamFailure()) {
+                binlistCircuitBreaker.onSuccess(System.nanoTime() - sentAt.get());
+                throw e;
+            }
+            binlistCircuitBreaker.onError(System.nanoTime() - sentAt.get());
+            return fallback(bin, e);
+        } catch (RuntimeException e) {
+            //an unexpected failure still ends the call, a half-open trial permit must not be left taken
+            phaseTimers.record(PhaseTimers.Phase.BINLIST_CALL, System.nanoTime() - sentAt.get());
+            binlistCircuitBreaker.onError(System.nanoTime() - sentAt.get());
+            log.error("{} External API lookup failed for BIN: '{}'. Cause: '{}'", PREFIX, bin, e.getMessage());
+            throw e;
+        }
+        long duration = System.nanoTime() - sentAt.get();
+        phaseTimers.record(PhaseTimers.Phase.BINLIST_CALL, duration);
+        binlistCircuitBreaker.onSuccess(duration);
+
+        if (cardInfoResponse == null || cardInfoResponse.getCountry() == null) {
+            log.error("{} Invalid response from external API for BIN: '{}'", PREFIX, bin);
+            throw new ExternalApiException("Invalid response from external API.");
+        }
+
+        String countryCode = cardInfoResponse.getCountry().getAlpha2();
+        if(countryCode == null || countryCode.isEmpty()){
+            log.error("{} Country code is null or empty. Cause card_number is invalid.", PREFIX);
+            throw new BadRequestException("Country code is null or empty. Cause card_number is invalid.");
+        }
+
+        binCountryCache.put(bin, cardInfoResponse.getCountry());
+        binCountryStore.append(bin, countryCode);
+        binInfoTable.save(bin, cardInfoResponse);
+        return cardInfoResponse.getCountry();
+    }
+
+    //degraded mode, results are not cached so the BIN is looked up again once binlist recovers
+    private CardInfoResponse.Country fallback(String bin, RuntimeException failure){
+        if(circuitBreakerProperties.isServeStale()) {
+            Optional<CardInfoResponse.Country> stale = binCountryCache.getStale(bin);
+            if(stale.isPresent()) {
+                log.warn("{} Serving last known country '{}' for BIN: '{}'", PREFIX, stale.get().getAlpha2(), bin);
+                return stale.get();
+            }
+        }
+        if(circuitBreakerProperties.isServeOthers()) {
+            log.warn("{} Serving '{}' card cost for BIN: '{}'", PREFIX, CardCostLookupTable.OTHERS, bin);
+            CardInfoResponse.Country others = new CardInfoResponse.Country();
+            others.setAlpha2(CardCostLookupTable.OTHERS);
+            return others;
+        }
+        throw failure;
+    }
+
+    private static <T> T join(CompletableFuture<T> future){
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ExternalApiException("An error occurred while communicating with the external API.");
+        }
+    }
+}
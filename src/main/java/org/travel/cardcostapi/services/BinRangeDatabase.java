@@ -0,0 +1,165 @@
+package org.travel.cardcostapi.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.travel.cardcostapi.configs.BinRangeProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only BIN range -> country database, memory-mapped from the file written by
+ * {@link org.travel.cardcostapi.utils.BinRangeCompiler} and binary-searched per lookup.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int   magic 'BINR', int version, int prefixLength
+ * int   countryCount, countryCount x 2 bytes ASCII alpha-2 code
+ * int   rangeCount, rangeCount x int start, rangeCount x int end, rangeCount x short countryIndex
+ * </pre>
+ * Ranges are sorted by start and do not overlap; starts/ends are the first prefixLength digits of a card number.
+ */
+@Log4j2
+@Component
+public class BinRangeDatabase {
+    public static final int MAGIC = 0x42494E52;
+    public static final int VERSION = 1;
+    public static final int MAX_PREFIX_LENGTH = 9;
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+
+    @Autowired
+    private BinRangeProperties binRangeProperties;
+
+    private volatile Ranges ranges;
+
+    @PostConstruct
+    public void init() {
+        String file = binRangeProperties.getFile();
+        if (file == null || file.isBlank()) {
+            log.info("{} No BIN range file configured, offline BIN lookup is disabled.", PREFIX);
+            return;
+        }
+        load(Path.of(file));
+    }
+
+    public void load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Ranges loaded = Ranges.read(buffer);
+            this.ranges = loaded;
+            log.info("{} Loaded '{}' BIN ranges of '{}' digits from '{}'", PREFIX, loaded.rangeCount, loaded.prefixLength, path);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Cannot load BIN range file '" + path + "': " + e.getMessage(), e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return ranges != null;
+    }
+
+    /**
+     * @return number of leading digits the ranges are matched on, 0 when disabled
+     */
+    public int getPrefixLength() {
+        Ranges current = ranges;
+        return current == null ? 0 : current.prefixLength;
+    }
+
+    /**
+     * @return alpha-2 country code of the range containing the card number, or null when unknown/disabled
+     */
+    public String findCountry(CharSequence cardNumber) {
+        Ranges current = ranges;
+        return current == null ? null : current.find(cardNumber);
+    }
+
+    private static final class Ranges {
+        private final ByteBuffer buffer;
+        private final int prefixLength;
+        private final String[] countries;
+        private final int rangeCount;
+        private final int startsOffset;
+        private final int endsOffset;
+        private final int countryIndexOffset;
+
+        private Ranges(ByteBuffer buffer, int prefixLength, String[] countries, int rangeCount, int startsOffset) {
+            this.buffer = buffer;
+            this.prefixLength = prefixLength;
+            this.countries = countries;
+            this.rangeCount = rangeCount;
+            this.startsOffset = startsOffset;
+            this.endsOffset = startsOffset + rangeCount * Integer.BYTES;
+            this.countryIndexOffset = endsOffset + rangeCount * Integer.BYTES;
+        }
+
+        static Ranges read(ByteBuffer buffer) {
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("not a BIN range file");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IllegalArgumentException("unsupported version " + buffer.getInt(4));
+            }
+            int prefixLength = buffer.getInt(8);
+            if (prefixLength < 1 || prefixLength > MAX_PREFIX_LENGTH) {
+                throw new IllegalArgumentException("invalid prefix length " + prefixLength);
+            }
+
+            int countryCount = buffer.getInt(12);
+            String[] countries = new String[countryCount];
+            int offset = 16;
+            for (int i = 0; i < countryCount; i++) {
+                byte[] code = {buffer.get(offset), buffer.get(offset + 1)};
+                countries[i] = new String(code, StandardCharsets.US_ASCII).intern();
+                offset += 2;
+            }
+
+            int rangeCount = buffer.getInt(offset);
+            offset += Integer.BYTES;
+            long expectedSize = (long) offset + (long) rangeCount * (2 * Integer.BYTES + Short.BYTES);
+            if (buffer.capacity() < expectedSize) {
+                throw new IllegalArgumentException("truncated file, expected " + expectedSize + " bytes");
+            }
+            return new Ranges(buffer, prefixLength, countries, rangeCount, offset);
+        }
+
+        String find(CharSequence cardNumber) {
+            if (cardNumber == null || cardNumber.length() < prefixLength) {
+                return null;
+            }
+            int key = 0;
+            for (int i = 0; i < prefixLength; i++) {
+                int digit = cardNumber.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return null;
+                }
+                key = key * 10 + digit;
+            }
+
+            // last range whose start <= key
+            int low = 0;
+            int high = rangeCount - 1;
+            int found = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (buffer.getInt(startsOffset + middle * Integer.BYTES) <= key) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+
+            if (found < 0 || buffer.getInt(endsOffset + found * Integer.BYTES) < key) {
+                return null;
+            }
+            return countries[buffer.getShort(countryIndexOffset + found * Short.BYTES)];
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.travel.cardcostapi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.repositories.CardCostRepository;
+import org.travel.cardcostapi.requests.CreateCardCostRequest;
+import org.travel.cardcostapi.responses.CardCostImportResponse;
+import org.travel.cardcostapi.utils.Utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates or updates card costs from a CSV ('country,cost' lines) or NDJSON ('{"country":"US","cost":5}' lines)
+ * body in one transaction. The body is read line by line and written in chunks of IMPORT_CHUNK_SIZE countries:
+ * one select for the existing rows of the chunk, then batched inserts & updates, so memory stays flat whatever
+ * the size of the body. Invalid lines are rejected without failing the import.
+ */
+@Log4j2
+@Service
+public class CardCostImportService {
+    private final String PREFIX = this.getClass().getSimpleName() + ":>";
+    //same as hibernate.jdbc.batch_size and the allocation size of card_cost_seq, one chunk is one JDBC batch
+    public static final int IMPORT_CHUNK_SIZE = 50;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Format { CSV, NDJSON }
+
+    @Autowired
+    private CardCostRepository cardCostRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //an IOException, e.g. the client disconnecting mid-body, rolls back the chunks already flushed too
+    @Transactional(rollbackFor = Exception.class)
+    public CardCostImportResponse importCardCosts(BufferedReader reader, Format format) throws IOException {
+        long startTime = Utils.getStartTime();
+        CardCostImportResponse result = new CardCostImportResponse(0, 0, 0, 0, new ArrayList<>());
+        //a country repeated within the body keeps its last cost
+        Map<String, Double> chunk = new LinkedHashMap<>();
+
+        String line;
+        int lineNumber = 0;
+        //the header may follow blank lines and comments
+        boolean firstRow = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            boolean first = firstRow;
+            firstRow = false;
+
+            CreateCardCostRequest row;
+            try {
+                row = format == Format.CSV ? parseCsv(line, first) : parseJson(line);
+                if (row == null) {
+                    continue;
+                }
+                row.validate();
+            } catch (BadRequestException e) {
+                reject(result, lineNumber, e.getMessage());
+                continue;
+            }
+
+            chunk.put(row.getCountry(), row.getCost());
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                writeChunk(chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, result);
+        }
+
+        log.info("{} Imported card costs: '{}' created, '{}' updated, '{}' unchanged, '{}' rejected within '{}' ms",
+                PREFIX, result.getCreated(), result.getUpdated(), result.getUnchanged(), result.getRejected(), Utils.getExecutionTime(startTime));
+        return result;
+    }
+
+    private void writeChunk(Map<String, Double> chunk, CardCostImportResponse result) {
+        Map<String, CardCost> existing = cardCostRepository.findByCountryIn(chunk.keySet()).stream()
+                .collect(Collectors.toMap(CardCost::getCountry, Function.identity()));
+        List<CardCostChangedEvent> events = new ArrayList<>();
+
+        chunk.forEach((country, cost) -> {
+            CardCost cardCost = existing.get(country);
+            if (cardCost == null) {
+                events.add(CardCostChangedEvent.created(cardCostRepository.save(new CardCost(country, cost))));
+                result.setCreated(result.getCreated() + 1);
+            } else if (cost.equals(cardCost.getCost())) {
+                result.setUnchanged(result.getUnchanged() + 1);
+            } else {
+                cardCost.setCost(cost);
+                events.add(CardCostChangedEvent.updated(country, cardCost));
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        });
+
+        //sends the chunk as batched statements and keeps the persistence context from growing with the body
+        try {
+            cardCostRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (!CardCostService.isCountryConflict(e)) {
+                throw e;
+            }
+            //a country of the chunk was created concurrently, the import is rolled back and can be sent again
+            log.error("{} Import rejected by the database. Cause: '{}'", PREFIX, e.getMostSpecificCause().getMessage());
+            throw new BadRequestException("Country already exists, nothing was imported. Please try again.");
+        }
+        entityManager.clear();
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private CreateCardCostRequest parseCsv(String line, boolean firstRow) {
+        String[] columns = line.split(",");
+        if (columns.length != 2) {
+            throw new BadRequestException("Expected 'country,cost'");
+        }
+        String country = unquote(columns[0]);
+        String cost = unquote(columns[1]);
+        if (firstRow && cost.equalsIgnoreCase("cost")) {
+            //header
+            return null;
+        }
+
+        CreateCardCostRequest row = new CreateCardCostRequest();
+        row.setCountry(country);
+        row.setCost(parseCost(cost));
+        return row;
+    }
+
+    private CreateCardCostRequest parseJson(String line) {
+        CreateCardCostRequest row;
+        try {
+            row = objectMapper.readValue(line, CreateCardCostRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON");
+        }
+        if (row == null) {
+            throw new BadRequestException("Invalid JSON");
+        }
+        if (!Double.isFinite(row.getCost())) {
+            throw new BadRequestException("Invalid cost");
+        }
+        return row;
+    }
+
+    private static double parseCost(String value) {
+        try {
+            double cost = Double.parseDouble(value);
+            if (Double.isFinite(cost)) {
+                return cost;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequestException("Invalid cost '" + value + "'");
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static void reject(CardCostImportResponse result, int lineNumber, String error) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new CardCostImportResponse.LineError(lineNumber, error));
+        }
+    }
+}
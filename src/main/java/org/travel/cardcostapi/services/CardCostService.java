@@ -1,60 +1,76 @@
 package org.travel.cardcostapi.services;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.PersistenceContext;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClientException;
+import org.springframework.transaction.annotation.Transactional;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
 import org.travel.cardcostapi.exceptions.BadRequestException;
-import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.PreconditionFailedException;
 import org.travel.cardcostapi.exceptions.ResourceNotFoundException;
+import org.travel.cardcostapi.metrics.PhaseTimers;
 import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
 import org.travel.cardcostapi.repositories.CardCostRepository;
 import org.travel.cardcostapi.requests.CreateCardCostRequest;
 import org.travel.cardcostapi.requests.PaymentCardCostRequest;
-import org.springframework.web.client.RestTemplate;
 import org.travel.cardcostapi.requests.UpdateCardCostRequest;
-import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.utils.ETags;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Log4j2
 @Service
 @NoArgsConstructor
 public class CardCostService {
     private final String PREFIX = this.getClass().getSimpleName() + ":>";
-    public static String BINLIST_URL = "https://lookup.binlist.net/";
     public static int BINLIST_BIN_LENGTH = 6;
+    public static final int MAX_PAGE_SIZE = 1000;
 
     @Autowired
     private CardCostRepository cardCostRepository;
-    @Setter
-    private RestTemplate restTemplate;
+    @Autowired
+    private BinLookupService binLookupService;
+    @Autowired
+    private CardCostLookupTable cardCostLookupTable;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PhaseTimers phaseTimers;
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    //create new
+    //create new, a single insert: an existing country is rejected by the unique constraint on country
     @Transactional
     public CardCost createCardCost(CreateCardCostRequest createCardCostRequest){
-        Optional<CardCost> cardCostOptional = cardCostRepository.findByCountry(createCardCostRequest.getCountry());
-
-        if(cardCostOptional.isPresent()){
-            throw new BadRequestException("Country already exists");
-        }
-
         CardCost cardCost = new CardCost();
         cardCost.setCountry(createCardCostRequest.getCountry());
         cardCost.setCost(createCardCostRequest.getCost());
 
-        return cardCostRepository.save(cardCost);
+        CardCost savedCardCost = saveAndFlush(cardCost, null);
+        eventPublisher.publishEvent(CardCostChangedEvent.created(savedCardCost));
+        return savedCardCost;
     }
 
     //get all
+    @Transactional(readOnly = true)
     public List<CardCost> getAllCardCost(){
         List<CardCost> cardCostList = cardCostRepository.findAll();
 
@@ -66,9 +82,46 @@ public class CardCostService {
         return cardCostList;
     }
 
-    //get by id
+    //ids & versions of all card costs, to answer a conditional get without loading them
+    @Transactional(readOnly = true)
+    public List<CardCostVersion> getAllCardCostVersions(){
+        return cardCostRepository.findAllVersions();
+    }
+
+    //get a page of card costs with id greater than afterId
+    @Transactional(readOnly = true)
+    public List<CardCost> getCardCostPage(Long afterId, int limit){
+        if(afterId == null || afterId < 0) {
+            throw new BadRequestException("after_id must be 0 or greater");
+        }
+        if(limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        return cardCostRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    //stream all card costs ordered by id, rows are detached once consumed so memory stays flat
+    @Transactional(readOnly = true)
+    public long streamAllCardCost(Consumer<CardCost> consumer){
+        long count = 0;
+        try (Stream<CardCost> cardCosts = cardCostRepository.streamAllByOrderByIdAsc()) {
+            Iterator<CardCost> iterator = cardCosts.iterator();
+            while (iterator.hasNext()) {
+                CardCost cardCost = iterator.next();
+                consumer.accept(cardCost);
+                entityManager.detach(cardCost);
+                count++;
+            }
+        }
+        log.info("{} Streamed '{}' card costs", PREFIX, count);
+        return count;
+    }
+
+    //get by id, without the optimistic lock of findById: a plain read has no version to check at commit
+    @Transactional(readOnly = true)
     public CardCost getCardCostById(Long cardCostId){
-        Optional<CardCost> cardCostOptional = cardCostRepository.findById(cardCostId);
+        Optional<CardCost> cardCostOptional = cardCostRepository.readById(cardCostId);
 
         cardCostOptional.orElseThrow(()-> new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!"));
 
@@ -78,61 +131,108 @@ public class CardCostService {
     //update
     @Transactional
     public CardCost updateCardCostById(Long cardCostId, UpdateCardCostRequest updateCardCostRequest){
+        return updateCardCostById(cardCostId, updateCardCostRequest, null);
+    }
+
+    //update, only when ifMatch (an If-Match header, null for none) matches the ETag of the current card cost
+    @Transactional
+    public CardCost updateCardCostById(Long cardCostId, UpdateCardCostRequest updateCardCostRequest, String ifMatch){
         Optional<CardCost> cardCostOptional = cardCostRepository.findById(cardCostId);
 
         return cardCostOptional.map(cardCost -> {
+            checkPrecondition(cardCost, ifMatch);
+            String previousCountry = cardCost.getCountry();
             cardCost.setCountry(updateCardCostRequest.getCountry());
             cardCost.setCost(updateCardCostRequest.getCost());
-            return cardCostRepository.save(cardCost);
+            CardCost savedCardCost = saveAndFlush(cardCost, ifMatch);
+            eventPublisher.publishEvent(CardCostChangedEvent.updated(previousCountry, savedCardCost));
+            return savedCardCost;
         }).orElseThrow(()-> new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!"));
     }
 
     //delete
     @Transactional
     public void deleteCardCostById(Long cardCostId) {
+        deleteCardCostById(cardCostId, null);
+    }
+
+    //delete, only when ifMatch (an If-Match header, null for none) matches the ETag of the current card cost
+    @Transactional
+    public void deleteCardCostById(Long cardCostId, String ifMatch) {
         Optional<CardCost> cardCostOptional = cardCostRepository.findById(cardCostId);
         CardCost cardCost = cardCostOptional.orElseThrow(()-> new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!"));
+        checkPrecondition(cardCost, ifMatch);
 
         cardCostRepository.delete(cardCost);
+        if (ifMatch != null) {
+            //the version check of the delete fails here rather than at commit
+            try {
+                cardCostRepository.flush();
+            } catch (OptimisticLockingFailureException e) {
+                throw changedConcurrently(cardCostId);
+            }
+        }
+        eventPublisher.publishEvent(CardCostChangedEvent.deleted(cardCost.getCountry()));
     }
 
-    public CardCost getPaymentCardCost(PaymentCardCostRequest paymentCardCostRequest){
-        String bin = paymentCardCostRequest.getCardNumber().substring(0,BINLIST_BIN_LENGTH);
-        String binlistUrl = BINLIST_URL + bin;
+    private static void checkPrecondition(CardCost cardCost, String ifMatch){
+        if (ifMatch != null && !ETags.matches(ifMatch, ETags.of(cardCost), false)) {
+            throw new PreconditionFailedException("Card Cost with Id: " + cardCost.getId() + " was changed, current ETag: " + ETags.of(cardCost));
+        }
+    }
+
+    private static PreconditionFailedException changedConcurrently(Long cardCostId){
+        return new PreconditionFailedException("Card Cost with Id: " + cardCostId + " was changed by another request");
+    }
 
+    //flushed here so a duplicate country or, for a conditional request, a version conflict fails inside the request instead of at commit
+    private CardCost saveAndFlush(CardCost cardCost, String ifMatch){
         try {
-            log.info("{} Sending request to external API with BIN: '{}'", PREFIX, bin);
-            if(this.restTemplate == null){
-                this.restTemplate = new RestTemplate();
+            return cardCostRepository.saveAndFlush(cardCost);
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch == null) {
+                throw e;
             }
-            CardInfoResponse cardInfoResponse = restTemplate.getForObject(binlistUrl, CardInfoResponse.class);
-
-            if (cardInfoResponse == null || cardInfoResponse.getCountry() == null) {
-                log.error("{} Invalid response from external API for BIN: '{}'", PREFIX, bin);
-                throw new ExternalApiException("Invalid response from external API.");
+            throw changedConcurrently(cardCost.getId());
+        } catch (DataIntegrityViolationException e) {
+            if (!isCountryConflict(e)) {
+                throw e;
             }
+            log.error("{} Card cost for country: '{}' rejected by the database. Cause: '{}'", PREFIX, cardCost.getCountry(), e.getMostSpecificCause().getMessage());
+            throw new BadRequestException("Country already exists");
+        }
+    }
 
-            String countryCode = cardInfoResponse.getCountry().getAlpha2();
-            if(countryCode == null || countryCode.isEmpty()){
-                log.error("{} Country code is null or empty. Cause card_number is invalid.", PREFIX);
-                throw new BadRequestException("Country code is null or empty. Cause card_number is invalid.");
+    /**
+     * @return whether the violation is of the unique country constraint, any other, e.g. a not null column, is a bug
+     */
+    public static boolean isCountryConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException constraintViolation && constraintViolation.getConstraintName() != null) {
+                return containsCountryConstraint(constraintViolation.getConstraintName());
             }
-            Optional<CardCost> cardCostOptional = cardCostRepository.findByCountry(countryCode);
+        }
+        //not translated by hibernate, the driver names the constraint in its message
+        return containsCountryConstraint(e.getMostSpecificCause().getMessage());
+    }
 
-            if(cardCostOptional.isEmpty()) {
-                cardCostOptional = cardCostRepository.findByCountry("OTHERS");
-            }
+    private static boolean containsCountryConstraint(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(CardCost.COUNTRY_CONSTRAINT);
+    }
 
-            return cardCostOptional.orElseThrow(()-> new ResourceNotFoundException("Card Cost with country: " + countryCode + " do not exists!"));
-        }catch (ResourceAccessException e) {
-            log.error("{} Failed to connect to external API. Cause: '{}'", PREFIX, e.getMessage());
-            throw new ExternalApiException("Failed to connect to external API. Please try again later.");
-        } catch (HttpStatusCodeException e) {
-            log.error("{} External API returned an error. Cause: '{}'", PREFIX, e.getMessage());
-            throw new ExternalApiException("External API returned an error: " + e.getStatusCode());
-        } catch (RestClientException e) {
-            log.error("{} An error occurred while communicating with the external API.. Cause: '{}'", PREFIX, e.getMessage());
-            throw new ExternalApiException("An error occurred while communicating with the external API.");
+    public CardCost getPaymentCardCost(PaymentCardCostRequest paymentCardCostRequest){
+        return getPaymentCardCost(paymentCardCostRequest, RateLimiter.Priority.INTERACTIVE);
+    }
+
+    public CardCost getPaymentCardCost(PaymentCardCostRequest paymentCardCostRequest, RateLimiter.Priority priority){
+        String countryCode = phaseTimers.record(PhaseTimers.Phase.BIN_LOOKUP,
+                () -> binLookupService.findCountryCode(paymentCardCostRequest.getCardNumber(), priority));
+
+        CardCost cardCost = phaseTimers.record(PhaseTimers.Phase.DB_LOOKUP, () -> cardCostLookupTable.resolve(countryCode));
+        if(cardCost == null) {
+            throw new ResourceNotFoundException("Card Cost with country: " + countryCode + " do not exists!");
         }
+
+        return cardCost;
     }
 }
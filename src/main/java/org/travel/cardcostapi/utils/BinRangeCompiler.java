@@ -0,0 +1,123 @@
+package org.travel.cardcostapi.utils;
+
+import org.travel.cardcostapi.services.BinRangeDatabase;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a CSV of BIN ranges into the binary file read by {@link BinRangeDatabase}.
+ * <p>
+ * Each CSV line is 'range_start,range_end,alpha2', e.g. '400000,400099,US'. Starts are padded with 0 and ends
+ * with 9 up to the prefix length, so '4111,4111,US' covers 411100-411199. Blank lines, '#' comments and a header
+ * line are skipped.
+ * <p>
+ * Usage: java -cp CardCostApi.jar -Dloader.main=org.travel.cardcostapi.utils.BinRangeCompiler
+ * org.springframework.boot.loader.launch.PropertiesLauncher ranges.csv bin-ranges.dat [prefixLength]
+ */
+public class BinRangeCompiler {
+    public static final int DEFAULT_PREFIX_LENGTH = 6;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BinRangeCompiler <ranges.csv> <output file> [prefixLength]");
+            System.exit(1);
+        }
+        int prefixLength = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PREFIX_LENGTH;
+
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8);
+             OutputStream output = new BufferedOutputStream(Files.newOutputStream(Path.of(args[1])))) {
+            int rangeCount = compile(reader, output, prefixLength);
+            System.out.println("Compiled " + rangeCount + " BIN ranges into " + args[1]);
+        }
+    }
+
+    /**
+     * @return number of ranges written
+     * @throws IllegalArgumentException on malformed or overlapping ranges
+     */
+    public static int compile(BufferedReader reader, OutputStream output, int prefixLength) throws IOException {
+        if (prefixLength < 1 || prefixLength > BinRangeDatabase.MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("Prefix length must be between 1 and " + BinRangeDatabase.MAX_PREFIX_LENGTH);
+        }
+
+        Map<String, Integer> countryIndexes = new LinkedHashMap<>();
+        List<int[]> ranges = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) {
+                continue;
+            }
+
+            String[] columns = line.split(",");
+            if (columns.length < 3) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected 'start,end,country'");
+            }
+            int start = parseBound(columns[0].trim(), '0', prefixLength, lineNumber);
+            int end = parseBound(columns[1].trim(), '9', prefixLength, lineNumber);
+            String country = columns[2].trim().toUpperCase();
+            if (start > end) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": range start is after range end");
+            }
+            if (!country.matches("[A-Z]{2}")) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": invalid country code '" + country + "'");
+            }
+
+            int countryIndex = countryIndexes.computeIfAbsent(country, code -> countryIndexes.size());
+            ranges.add(new int[]{start, end, countryIndex, lineNumber});
+        }
+
+        ranges.sort(Comparator.comparingInt(range -> range[0]));
+        for (int i = 1; i < ranges.size(); i++) {
+            if (ranges.get(i)[0] <= ranges.get(i - 1)[1]) {
+                throw new IllegalArgumentException("Line " + ranges.get(i)[3] + ": range overlaps line " + ranges.get(i - 1)[3]);
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(BinRangeDatabase.MAGIC);
+        data.writeInt(BinRangeDatabase.VERSION);
+        data.writeInt(prefixLength);
+        data.writeInt(countryIndexes.size());
+        for (String country : countryIndexes.keySet()) {
+            data.write(country.getBytes(StandardCharsets.US_ASCII));
+        }
+        data.writeInt(ranges.size());
+        for (int[] range : ranges) {
+            data.writeInt(range[0]);
+        }
+        for (int[] range : ranges) {
+            data.writeInt(range[1]);
+        }
+        for (int[] range : ranges) {
+            data.writeShort(range[2]);
+        }
+        data.flush();
+        return ranges.size();
+    }
+
+    private static int parseBound(String value, char padding, int prefixLength, int lineNumber) {
+        if (value.isEmpty() || value.length() > prefixLength || !value.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": invalid BIN '" + value + "'");
+        }
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < prefixLength) {
+            padded.append(padding);
+        }
+        return Integer.parseInt(padded.toString());
+    }
+}
@@ -0,0 +1,112 @@
+package org.travel.cardcostapi.utils;
+
+/**
+ * Checks a card number locally before it is sent to binlist: length, digits only, Luhn checksum and, for the
+ * IIN ranges of the main card schemes, the lengths that scheme issues. Numbers outside the known ranges only
+ * need to pass the first three checks. Works on the char sequence as is and allocates nothing.
+ */
+public final class CardNumberValidator {
+    public static final int MIN_LENGTH = 8;
+    public static final int MAX_LENGTH = 19;
+
+    public enum Rejection {
+        EMPTY("empty", "CardNumber cannot be null or empty"),
+        LENGTH("length", "CardNumber must be greater than 8 and less than 19 digits"),
+        NON_DIGIT("non_digit", "CardNumber must contain digits only"),
+        LUHN("luhn", "CardNumber checksum is invalid"),
+        SCHEME_LENGTH("scheme_length", "CardNumber length is invalid for its card scheme");
+
+        private final String tag;
+        private final String message;
+
+        Rejection(String tag, String message) {
+            this.tag = tag;
+            this.message = message;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    //{lowest IIN, highest IIN, IIN digits, bit mask of the allowed lengths}
+    private static final int[][] SCHEMES = {
+            {2200, 2204, 4, lengths(16, 17, 18, 19)},       //Mir
+            {2221, 2720, 4, lengths(16)},                   //Mastercard 2-series
+            {34, 34, 2, lengths(15)},                       //American Express
+            {36, 36, 2, lengths(14, 15, 16, 17, 18, 19)},   //Diners Club International
+            {37, 37, 2, lengths(15)},                       //American Express
+            {3528, 3589, 4, lengths(16, 17, 18, 19)},       //JCB
+            {4, 4, 1, lengths(13, 16, 19)},                 //Visa
+            {51, 55, 2, lengths(16)},                       //Mastercard
+            {6011, 6011, 4, lengths(16, 17, 18, 19)},       //Discover
+            {62, 62, 2, lengths(16, 17, 18, 19)},           //UnionPay
+            {644, 649, 3, lengths(16, 17, 18, 19)},         //Discover
+            {65, 65, 2, lengths(16, 17, 18, 19)}            //Discover
+    };
+
+    private CardNumberValidator() {
+    }
+
+    /**
+     * @return the reason the card number is rejected, or null when it is valid
+     */
+    public static Rejection check(CharSequence cardNumber) {
+        if (cardNumber == null || isBlank(cardNumber)) {
+            return Rejection.EMPTY;
+        }
+        int length = cardNumber.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return Rejection.LENGTH;
+        }
+
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = cardNumber.charAt(length - 1 - i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Rejection.NON_DIGIT;
+            }
+            if ((i & 1) == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        if (sum % 10 != 0) {
+            return Rejection.LUHN;
+        }
+
+        int iin = (cardNumber.charAt(0) - '0') * 1000 + (cardNumber.charAt(1) - '0') * 100
+                + (cardNumber.charAt(2) - '0') * 10 + (cardNumber.charAt(3) - '0');
+        for (int[] scheme : SCHEMES) {
+            int prefix = scheme[2] == 4 ? iin : scheme[2] == 3 ? iin / 10 : scheme[2] == 2 ? iin / 100 : iin / 1000;
+            if (prefix >= scheme[0] && prefix <= scheme[1]) {
+                return (scheme[3] & (1 << length)) != 0 ? null : Rejection.SCHEME_LENGTH;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lengths(int... lengths) {
+        int mask = 0;
+        for (int length : lengths) {
+            mask |= 1 << length;
+        }
+        return mask;
+    }
+}
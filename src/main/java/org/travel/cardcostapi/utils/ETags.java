@@ -0,0 +1,86 @@
+package org.travel.cardcostapi.utils;
+
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
+
+import java.util.Collection;
+
+/**
+ * Strong ETags of card costs, derived from their JPA version so they are computed without serializing anything.
+ * A card cost is tagged with its version, a list with a hash of the ids & versions of its card costs: any create,
+ * update or delete changes it. The hash does not depend on the order of the list.
+ */
+public final class ETags {
+    private ETags() {
+    }
+
+    public static String of(CardCost cardCost) {
+        return quote(Long.toString(version(cardCost.getVersion())));
+    }
+
+    public static String ofCardCosts(Collection<CardCost> cardCosts) {
+        long hash = 0;
+        for (CardCost cardCost : cardCosts) {
+            hash += mix(cardCost.getId(), cardCost.getVersion());
+        }
+        return ofList(cardCosts.size(), hash);
+    }
+
+    public static String ofVersions(Collection<CardCostVersion> versions) {
+        long hash = 0;
+        for (CardCostVersion version : versions) {
+            hash += mix(version.id(), version.version());
+        }
+        return ofList(versions.size(), hash);
+    }
+
+    /**
+     * @param header value of an If-Match or If-None-Match header, a list of ETags or '*'
+     * @param weak   weak comparison (If-None-Match), W/ prefixes are ignored; strong comparison (If-Match) never matches them
+     * @return whether the header matches the given ETag
+     */
+    public static boolean matches(String header, String eTag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*")) {
+                return true;
+            }
+            if (trimmed.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String ofList(int size, long hash) {
+        return quote(size + "-" + Long.toHexString(hash));
+    }
+
+    //64-bit finalizer of MurmurHash3, spreads every (id, version) pair over the whole hash before they are summed
+    private static long mix(Long id, Long version) {
+        long h = (id == null ? 0 : id) * 0x9E3779B97F4A7C15L + version(version);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long version(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
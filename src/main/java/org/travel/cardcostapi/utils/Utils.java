@@ -4,13 +4,18 @@ package org.travel.cardcostapi.utils;
  * @author asafronov
  */
 public class Utils {
+    /**
+     * @return monotonic start time in nanoseconds, only meaningful for {@link #getExecutionTime(long)}
+     */
     public static long getStartTime() {
-        return System.currentTimeMillis();
+        return System.nanoTime();
     }
 
-    public static long getExecutionTime(long startTime) {
-        long endTime = System.currentTimeMillis();
-        return endTime - startTime;
+    /**
+     * @return milliseconds elapsed since startTime, with sub-millisecond precision
+     */
+    public static double getExecutionTime(long startTime) {
+        return (System.nanoTime() - startTime) / 1_000_000.0;
     }
 
     public static String getMaskedCardNumber(String cardNumber){
@@ -0,0 +1,162 @@
+package org.travel.cardcostapi;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the thread-per-request model with virtual threads on a payment load where every request waits on a
+ * slow binlist. Run with: mvn test -Dgroups=load -Dexcluded.test.groups= -Dtest=VirtualThreadsLoadTest
+ */
+@Tag("load")
+class VirtualThreadsLoadTest {
+    private static final int REQUESTS = 2000;
+    private static final int CONCURRENCY = 400;
+    private static final int TOMCAT_THREADS = 50;
+    private static final long BINLIST_LATENCY_MILLIS = 500;
+
+    private HttpServer binlist;
+    private final AtomicInteger binlistInFlight = new AtomicInteger();
+    private final AtomicInteger binlistMaxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        binlist = HttpServer.create(new InetSocketAddress("localhost", 0), 2 * CONCURRENCY);
+        binlist.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        binlist.createContext("/", exchange -> {
+            binlistMaxInFlight.accumulateAndGet(binlistInFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(BINLIST_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                binlistInFlight.decrementAndGet();
+            }
+            byte[] body = "{\"country\":{\"alpha2\":\"US\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        binlist.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        binlist.stop(0);
+    }
+
+    @Test
+    void virtualThreadsServeMoreConcurrentRequests() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-10s %10s %12s %22s%n", "mode", "req/s", "failures", "max binlist in flight");
+        System.out.printf("%-10s %10.0f %12d %22d%n", "platform", platform.throughput, platform.failures, platform.maxInFlight);
+        System.out.printf("%-10s %10.0f %12d %22d%n", "virtual", virtual.throughput, virtual.failures, virtual.maxInFlight);
+
+        assertEquals(0, platform.failures);
+        assertEquals(0, virtual.failures);
+        assertTrue(platform.maxInFlight <= TOMCAT_THREADS);
+        assertTrue(virtual.maxInFlight > TOMCAT_THREADS);
+        assertTrue(virtual.throughput > platform.throughput);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        binlistMaxInFlight.set(0);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CardCostApiApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--server.tomcat.max-connections=" + 2 * CONCURRENCY,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--cardcost.binlist.url=http://localhost:" + binlist.getAddress().getPort() + "/",
+                "--cardcost.binlist.http2=false",
+                //neither the quota nor the bulkhead limits the binlist calls in flight
+                "--cardcost.binlist.rate-limit.requests-per-minute=1000000",
+                "--cardcost.binlist.rate-limit.burst=" + REQUESTS,
+                "--cardcost.binlist.bulkhead.max-concurrent-calls=" + CONCURRENCY,
+                "--cardcost.binlist.bulkhead.max-waiting-calls=" + CONCURRENCY,
+                //a cold start under the full concurrency may exceed the slow call duration, the breaker must not open
+                "--cardcost.binlist.circuit-breaker.slow-call-duration=1m",
+                "--logging.level.org.travel.cardcostapi=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            send(client, port, "/card-costs", "{\"country\":\"US\",\"cost\":5}").join();
+
+            Semaphore permits = new Semaphore(CONCURRENCY);
+            AtomicInteger failures = new AtomicInteger();
+            List<CompletableFuture<?>> requests = new ArrayList<>(REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                permits.acquire();
+                // a distinct BIN per request so the BIN cache and coalescing do not hide the upstream latency
+                String cardNumber = withCheckDigit(String.valueOf(400000 + i) + "000000000");
+                requests.add(send(client, port, "/payment-card-cost", "{\"card_number\":\"" + cardNumber + "\"}")
+                        .whenComplete((response, throwable) -> {
+                            if (throwable != null || response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                            permits.release();
+                        }));
+            }
+            CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            return new Result(REQUESTS / seconds, failures.get(), binlistMaxInFlight.get());
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpClient client, int port, String path, String body) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String withCheckDigit(String payload) {
+        int sum = 0;
+        for (int i = 0; i < payload.length(); i++) {
+            int digit = payload.charAt(payload.length() - 1 - i) - '0';
+            if (i % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return payload + (10 - sum % 10) % 10;
+    }
+
+    private record Result(double throughput, int failures, int maxInFlight) {
+    }
+}
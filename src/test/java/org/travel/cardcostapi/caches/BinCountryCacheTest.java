@@ -0,0 +1,104 @@
+package org.travel.cardcostapi.caches;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinCountryCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private BinCacheProperties properties;
+    private AtomicLong time;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new BinCacheProperties();
+        time = new AtomicLong();
+    }
+
+    @Test
+    void putAndGet() {
+        BinCountryCache cache = new BinCountryCache(properties, meterRegistry, time::get);
+
+        assertTrue(cache.get("411111").isEmpty());
+        cache.put("411111", country("US"));
+
+        assertEquals("US", cache.get("411111").orElseThrow().getAlpha2());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", BinCountryCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", BinCountryCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void expiresAfterTtl() {
+        properties.setTtl(Duration.ofMinutes(10));
+        BinCountryCache cache = new BinCountryCache(properties, meterRegistry, time::get);
+
+        cache.put("411111", country("US"));
+        time.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        assertTrue(cache.get("411111").isPresent());
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        assertTrue(cache.get("411111").isEmpty());
+    }
+
+    @Test
+    void staleCountryOutlivesTtl() {
+        properties.setTtl(Duration.ofMinutes(10));
+        properties.setStaleTtl(Duration.ofHours(1));
+        BinCountryCache cache = new BinCountryCache(properties, meterRegistry, time::get);
+
+        cache.put("411111", country("US"));
+        time.addAndGet(TimeUnit.MINUTES.toNanos(30));
+        assertTrue(cache.get("411111").isEmpty());
+        assertEquals("US", cache.getStale("411111").orElseThrow().getAlpha2());
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(31));
+        assertTrue(cache.getStale("411111").isEmpty());
+    }
+
+    @Test
+    void restoredCountryExpiresFromItsFetchTime() {
+        properties.setTtl(Duration.ofMinutes(10));
+        properties.setStaleTtl(Duration.ofHours(1));
+        BinCountryCache cache = new BinCountryCache(properties, meterRegistry, time::get);
+
+        cache.restore("411111", country("US"), Duration.ofMinutes(8));
+        cache.restore("422222", country("GR"), Duration.ofMinutes(30));
+        assertEquals("US", cache.get("411111").orElseThrow().getAlpha2());
+        assertTrue(cache.get("422222").isEmpty());
+        assertEquals("GR", cache.getStale("422222").orElseThrow().getAlpha2());
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(3));
+        assertTrue(cache.get("411111").isEmpty());
+
+        cache.put("411111", country("DK"));
+        time.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        assertEquals("DK", cache.get("411111").orElseThrow().getAlpha2());
+    }
+
+    @Test
+    void boundedBySize() {
+        properties.setMaxSize(10);
+        BinCountryCache cache = new BinCountryCache(properties, meterRegistry, time::get);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.valueOf(400000 + i), country("GR"));
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+
+    private CardInfoResponse.Country country(String alpha2) {
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        country.setAlpha2(alpha2);
+        return country;
+    }
+}
@@ -0,0 +1,224 @@
+package org.travel.cardcostapi.caches;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.configs.BinStoreProperties;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinCountryStoreTest {
+    @TempDir
+    private Path directory;
+
+    private Path file;
+    private BinStoreProperties storeProperties;
+    private BinCacheProperties cacheProperties;
+    private AtomicLong now;
+    private Executor compactor;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("bin-store.dat");
+        storeProperties = new BinStoreProperties();
+        storeProperties.setFile(file.toString());
+        cacheProperties = new BinCacheProperties();
+        now = new AtomicLong(Duration.ofDays(100).toMillis());
+        compactor = Runnable::run;
+    }
+
+    @Test
+    void restartStartsWarm() {
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        store.append("411111", "US");
+        store.append("012345", "GR");
+        store.close();
+
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        BinCountryStore reopened = store(cache);
+
+        assertEquals(2, reopened.size());
+        assertEquals("US", cache.get("411111").orElseThrow().getAlpha2());
+        assertEquals("GR", cache.get("012345").orElseThrow().getAlpha2());
+    }
+
+    @Test
+    void resultsOlderThanTtlAreOnlyStaleAndOlderThanStaleTtlAreDropped() {
+        cacheProperties.setTtl(Duration.ofHours(1));
+        cacheProperties.setStaleTtl(Duration.ofDays(1));
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        store.append("400000", "DK");
+        now.addAndGet(Duration.ofHours(12).toMillis());
+        store.append("411111", "US");
+        now.addAndGet(Duration.ofHours(13).toMillis());
+        store.append("422222", "GR");
+
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        store(cache);
+
+        assertTrue(cache.getStale("400000").isEmpty());
+        assertTrue(cache.get("411111").isEmpty());
+        assertEquals("US", cache.getStale("411111").orElseThrow().getAlpha2());
+        assertEquals("GR", cache.get("422222").orElseThrow().getAlpha2());
+    }
+
+    @Test
+    void fullFileIsCompactedToLatestResultPerBin() {
+        storeProperties.setMaxEntries(10);
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        for (int i = 0; i < 10; i++) {
+            store.append("411111", i % 2 == 0 ? "US" : "GR");
+        }
+        //not stored, the file is full
+        store.append("422222", "DK");
+        assertEquals(1, store.size());
+        store.append("422222", "DK");
+
+        assertEquals(2, store.size());
+        assertFalse(Files.exists(directory.resolve("bin-store.dat.compact")));
+
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        store(cache);
+        assertEquals("GR", cache.get("411111").orElseThrow().getAlpha2());
+        assertEquals("DK", cache.get("422222").orElseThrow().getAlpha2());
+    }
+
+    @Test
+    void compactionKeepsNewestHalfWhenAllBinsAreDistinct() {
+        storeProperties.setMaxEntries(10);
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        for (int i = 0; i < 11; i++) {
+            store.append(String.valueOf(400000 + i), "US");
+        }
+        store.append("400010", "US");
+
+        assertEquals(6, store.size());
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        store(cache);
+        assertTrue(cache.get("400004").isEmpty());
+        assertTrue(cache.get("400005").isPresent());
+        assertTrue(cache.get("400010").isPresent());
+    }
+
+    @Test
+    void failedCompactionKeepsTheCurrentMapping() throws IOException {
+        storeProperties.setMaxEntries(4);
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        for (int i = 0; i < 4; i++) {
+            store.append(String.valueOf(400000 + i), "US");
+        }
+        //the compacted file cannot replace a non-empty directory
+        Files.delete(file);
+        Files.createDirectory(file);
+        Files.writeString(file.resolve("blocker"), "");
+
+        store.append("422222", "DK");
+
+        assertTrue(store.isEnabled());
+        assertEquals(4, store.size());
+        assertFalse(Files.exists(directory.resolve("bin-store.dat.compact")));
+
+        //the next append compacts once the file can be replaced again
+        Files.delete(file.resolve("blocker"));
+        Files.delete(file);
+        store.append("422222", "DK");
+        assertEquals(2, store.size());
+        store.append("422222", "DK");
+
+        assertEquals(3, store.size());
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        store(cache);
+        assertEquals("US", cache.get("400003").orElseThrow().getAlpha2());
+        assertEquals("DK", cache.get("422222").orElseThrow().getAlpha2());
+    }
+
+    @Test
+    void fullFileIsCompactedOffTheAppendingThread() {
+        List<Runnable> compactions = new ArrayList<>();
+        compactor = compactions::add;
+        storeProperties.setMaxEntries(4);
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        for (int i = 0; i < 4; i++) {
+            store.append(String.valueOf(400000 + i), "US");
+        }
+
+        store.append("422222", "DK");
+        store.append("433333", "GR");
+
+        assertEquals(1, compactions.size());
+        assertEquals(4, store.size());
+
+        compactions.getFirst().run();
+        assertEquals(2, store.size());
+        store.append("422222", "DK");
+        assertEquals(3, store.size());
+        assertEquals(1, compactions.size());
+    }
+
+    @Test
+    void tornRecordIsIgnored() throws IOException {
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        store.append("411111", "US");
+        store.close();
+        //payload of a second record without its binLength, as left by a crash
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'G', 'R'}), BinCountryStore.HEADER_SIZE + BinCountryStore.RECORD_SIZE + 1);
+        }
+
+        BinCountryCache cache = new BinCountryCache(cacheProperties, new SimpleMeterRegistry());
+        BinCountryStore reopened = store(cache);
+
+        assertEquals(1, reopened.size());
+        reopened.append("422222", "DK");
+        assertEquals(2, reopened.size());
+    }
+
+    @Test
+    void notAStoreFileDisablesTheStore() throws IOException {
+        Files.writeString(file, "not a BIN store file");
+
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+        store.append("411111", "US");
+
+        assertFalse(store.isEnabled());
+        assertEquals("not a BIN store file", Files.readString(file));
+    }
+
+    @Test
+    void disabledWithoutFile() {
+        storeProperties.setFile("");
+        BinCountryStore store = store(new BinCountryCache(cacheProperties, new SimpleMeterRegistry()));
+
+        store.append("411111", "US");
+
+        assertFalse(store.isEnabled());
+        assertEquals(0, store.size());
+    }
+
+    private BinCountryStore store(BinCountryCache cache) {
+        BinCountryStore store = new BinCountryStore();
+        ReflectionTestUtils.setField(store, "binStoreProperties", storeProperties);
+        ReflectionTestUtils.setField(store, "binCacheProperties", cacheProperties);
+        ReflectionTestUtils.setField(store, "binCountryCache", cache);
+        ReflectionTestUtils.setField(store, "clock", (LongSupplier) now::get);
+        store.init();
+        ReflectionTestUtils.setField(store, "compactor", compactor);
+        return store;
+    }
+}
@@ -0,0 +1,126 @@
+package org.travel.cardcostapi.caches;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.repositories.CardCostRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardCostLookupTableTest {
+    @Mock
+    private CardCostRepository cardCostRepository;
+
+    @InjectMocks
+    private CardCostLookupTable cardCostLookupTable;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cardCostRepository.findAllOnPrimary()).thenReturn(List.of(
+                new CardCost(1L, "US", 5.0, 0L),
+                new CardCost(2L, "GR", 15.0, 0L),
+                new CardCost(3L, "OTHERS", 10.0, 0L)
+        ));
+        cardCostLookupTable.reload();
+    }
+
+    @Test
+    void resolveCountry() {
+        assertEquals(5.0, cardCostLookupTable.resolve("US").getCost());
+        assertEquals(15.0, cardCostLookupTable.resolve("GR").getCost());
+        assertEquals(3, cardCostLookupTable.size());
+    }
+
+    @Test
+    void resolveFallsBackToOthers() {
+        assertEquals("OTHERS", cardCostLookupTable.resolve("DK").getCountry());
+        assertEquals("OTHERS", cardCostLookupTable.resolve("usa").getCountry());
+        assertEquals("OTHERS", cardCostLookupTable.resolve(null).getCountry());
+    }
+
+    @Test
+    void resolveWithoutOthers() {
+        when(cardCostRepository.findAllOnPrimary()).thenReturn(List.of(new CardCost(1L, "US", 5.0, 0L)));
+        cardCostLookupTable.reload();
+
+        assertNull(cardCostLookupTable.resolve("DK"));
+    }
+
+    @Test
+    void appliesChanges() {
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.created(new CardCost(4L, "DK", 7.0, 0L)));
+        assertEquals(7.0, cardCostLookupTable.resolve("DK").getCost());
+
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.updated("US", new CardCost(1L, "CA", 6.0, 1L)));
+        assertEquals(6.0, cardCostLookupTable.resolve("CA").getCost());
+        assertEquals("OTHERS", cardCostLookupTable.resolve("US").getCountry());
+
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.deleted("GR"));
+        assertEquals("OTHERS", cardCostLookupTable.resolve("GR").getCountry());
+
+        verify(cardCostRepository, times(1)).findAllOnPrimary();
+    }
+
+    @Test
+    void ignoresOutdatedChange() {
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.updated("US", new CardCost(1L, "US", 8.0, 2L)));
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.updated("US", new CardCost(1L, "US", 7.0, 1L)));
+
+        assertEquals(8.0, cardCostLookupTable.resolve("US").getCost());
+    }
+
+    @Test
+    void reloadKeepsNewerVersionOfARow() {
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.updated("US", new CardCost(1L, "US", 8.0, 2L)));
+        when(cardCostRepository.findAllOnPrimary()).thenReturn(List.of(
+                new CardCost(1L, "US", 7.0, 1L),
+                new CardCost(2L, "GR", 16.0, 1L),
+                new CardCost(3L, "OTHERS", 10.0, 0L)
+        ));
+
+        cardCostLookupTable.reload();
+
+        assertEquals(8.0, cardCostLookupTable.resolve("US").getCost());
+        assertEquals(16.0, cardCostLookupTable.resolve("GR").getCost());
+        verify(cardCostRepository, never()).findAll();
+    }
+
+    @Test
+    void reloadDoesNotResurrectRowDeletedWhileReading() {
+        when(cardCostRepository.findAllOnPrimary()).thenAnswer(invocation -> {
+            //committed after the rows were read
+            cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.deleted("GR"));
+            return List.of(
+                    new CardCost(1L, "US", 5.0, 0L),
+                    new CardCost(2L, "GR", 15.0, 0L),
+                    new CardCost(3L, "OTHERS", 10.0, 0L));
+        });
+
+        cardCostLookupTable.reload();
+
+        assertEquals("OTHERS", cardCostLookupTable.resolve("GR").getCountry());
+        assertEquals(2, cardCostLookupTable.size());
+
+        //the delete is not applied again by a later reload
+        when(cardCostRepository.findAllOnPrimary()).thenReturn(List.of(new CardCost(4L, "GR", 20.0, 0L)));
+        cardCostLookupTable.reload();
+        assertEquals(20.0, cardCostLookupTable.resolve("GR").getCost());
+    }
+
+    @Test
+    void snapshotIsNotSharedWithCaller() {
+        CardCost cardCost = new CardCost(4L, "DK", 7.0, 0L);
+        cardCostLookupTable.onCardCostChanged(CardCostChangedEvent.created(cardCost));
+        cardCost.setCost(100.0);
+
+        assertEquals(7.0, cardCostLookupTable.resolve("DK").getCost());
+    }
+}
@@ -0,0 +1,245 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.BinProviderProperties;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinProviderRouterTest {
+    private static final String BIN = "45717360";
+
+    private BinProviderProperties properties;
+    private AtomicLong time;
+    private FakeProvider first;
+    private FakeProvider second;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BinProviderProperties();
+        properties.setFailureThreshold(2);
+        properties.setUnhealthyDuration(Duration.ofSeconds(30));
+        properties.setMinimumSamples(1);
+        properties.setMinHedgeDelay(Duration.ofMillis(10));
+        time = new AtomicLong();
+        first = new FakeProvider("first", "US");
+        second = new FakeProvider("second", "GR");
+    }
+
+    @Test
+    void routesToFastestProvider() {
+        first.latency = Duration.ofMillis(100);
+        second.latency = Duration.ofMillis(10);
+        BinProviderRouter router = router();
+
+        assertEquals("US", country(router));
+        //no response time yet, measured next
+        assertEquals("GR", country(router));
+        assertEquals("GR", country(router));
+        assertEquals("GR", country(router));
+
+        assertEquals(1, first.calls.get());
+        assertEquals(3, second.calls.get());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), router.getProviders().get(1).percentileNanos(50));
+    }
+
+    @Test
+    void measuresResponseTimeFromTheSend() {
+        first.queueing = Duration.ofMillis(500);
+        first.latency = Duration.ofMillis(10);
+        BinProviderRouter router = router();
+        AtomicLong sentAt = new AtomicLong(-1);
+
+        assertEquals("US", router.lookup(BIN, RateLimiter.Priority.INTERACTIVE, () -> sentAt.set(time.get())).join().getCountry().getAlpha2());
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), sentAt.get());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), router.getProviders().get(0).percentileNanos(50));
+    }
+
+    @Test
+    void failsOverOnUpstreamFailure() {
+        first.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later."));
+
+        assertEquals("GR", country(router()));
+        assertEquals(1, first.calls.get());
+        assertEquals(1, second.calls.get());
+    }
+
+    @Test
+    void returnsClientErrorWithoutFailover() {
+        first.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("External API returned an error: 404 NOT_FOUND", 404));
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> router().lookup(BIN).join());
+
+        assertEquals(404, ((ExternalApiException) exception.getCause()).getStatusCode());
+        assertEquals(0, second.calls.get());
+    }
+
+    @Test
+    void failsWhenAllProvidersFail() {
+        first.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("first failed"));
+        second.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("second failed", 503));
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> router().lookup(BIN).join());
+
+        assertEquals("second failed", exception.getCause().getMessage());
+    }
+
+    @Test
+    void passesOverUnhealthyProviderUntilUnhealthyDuration() {
+        first.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later."));
+        first.latency = Duration.ZERO;
+        second.latency = Duration.ofMillis(50);
+        BinProviderRouter router = router();
+        //first keeps no response time while failing, so it is tried first until it is unhealthy
+        country(router);
+        country(router);
+        country(router);
+        assertEquals(2, first.calls.get());
+        assertFalse(router.getProviders().get(0).isHealthy());
+
+        country(router);
+        assertEquals(2, first.calls.get());
+
+        time.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(router.getProviders().get(0).isHealthy());
+        country(router);
+        assertEquals(3, first.calls.get());
+    }
+
+    @Test
+    void failsOverRejectedLookupWithoutCountingAFailure() {
+        first.answer = () -> CompletableFuture.failedFuture(
+                new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", Duration.ofSeconds(6)));
+        BinProviderRouter router = router();
+
+        assertEquals("GR", country(router));
+        assertEquals("GR", country(router));
+        assertEquals("GR", country(router));
+
+        assertEquals(3, first.calls.get());
+        assertTrue(router.getProviders().get(0).isHealthy());
+    }
+
+    @Test
+    void returnsRejectionWhenNoProviderTakesTheLookup() {
+        second.answer = () -> CompletableFuture.failedFuture(
+                new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", Duration.ofSeconds(6)));
+        first.answer = second.answer;
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> router().lookup(BIN).join());
+
+        assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+    }
+
+    @Test
+    void passesCallerPriorityToEveryProvider() {
+        first.answer = () -> CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later."));
+
+        router().lookup(BIN, RateLimiter.Priority.BATCH).join();
+
+        assertEquals(RateLimiter.Priority.BATCH, first.priority);
+        assertEquals(RateLimiter.Priority.BATCH, second.priority);
+    }
+
+    @Test
+    void hedgesSlowLookupToNextProvider() throws Exception {
+        properties.setHedge(true);
+        first.latency = Duration.ofMillis(1);
+        second.latency = Duration.ofMillis(5);
+        BinProviderRouter router = router();
+        country(router);
+        country(router);
+
+        first.answer = CompletableFuture::new;
+        CardInfoResponse cardInfoResponse = router.lookup(BIN).get(5, TimeUnit.SECONDS);
+
+        assertEquals("GR", cardInfoResponse.getCountry().getAlpha2());
+        assertEquals(1, router.getHedgedCount());
+        assertEquals(1, router.getHedgeWonCount());
+    }
+
+    @Test
+    void doesNotHedgeWhenDisabled() throws Exception {
+        first.latency = Duration.ofMillis(1);
+        second.latency = Duration.ofMillis(5);
+        BinProviderRouter router = router();
+        country(router);
+        country(router);
+
+        first.answer = CompletableFuture::new;
+        CompletableFuture<CardInfoResponse> lookup = router.lookup(BIN);
+        Thread.sleep(50);
+
+        assertFalse(lookup.isDone());
+        assertEquals(1, second.calls.get());
+        assertEquals(0, router.getHedgedCount());
+    }
+
+    @Test
+    void requiresProvider() {
+        assertThrows(IllegalArgumentException.class, () -> new BinProviderRouter(List.of(), properties));
+    }
+
+    private BinProviderRouter router() {
+        return new BinProviderRouter(List.of(first, second), properties, time::get);
+    }
+
+    private static String country(BinProviderRouter router) {
+        return router.lookup(BIN).join().getCountry().getAlpha2();
+    }
+
+    private final class FakeProvider implements BinLookupProvider {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private Duration latency = Duration.ZERO;
+        private Duration queueing = Duration.ZERO;
+        private Supplier<CompletableFuture<CardInfoResponse>> answer;
+        private RateLimiter.Priority priority;
+
+        private FakeProvider(String name, String alpha2) {
+            this.name = name;
+            this.answer = () -> {
+                CardInfoResponse.Country country = new CardInfoResponse.Country();
+                country.setAlpha2(alpha2);
+                CardInfoResponse cardInfoResponse = new CardInfoResponse();
+                cardInfoResponse.setCountry(country);
+                return CompletableFuture.completedFuture(cardInfoResponse);
+            };
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        //sends after its queueing time on the test clock
+        @Override
+        public CompletableFuture<CardInfoResponse> lookup(String bin, RateLimiter.Priority priority, Runnable onSend) {
+            this.priority = priority;
+            time.addAndGet(queueing.toNanos());
+            onSend.run();
+            return lookup(bin);
+        }
+
+        //answers after its latency on the test clock
+        @Override
+        public CompletableFuture<CardInfoResponse> lookup(String bin) {
+            calls.incrementAndGet();
+            time.addAndGet(latency.toNanos());
+            return answer.get();
+        }
+    }
+}
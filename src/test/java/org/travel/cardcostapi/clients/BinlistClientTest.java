@@ -0,0 +1,146 @@
+package org.travel.cardcostapi.clients;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.BinlistProperties;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinlistClientTest {
+    private static final String CARD_INFO = """
+            {"number":{"length":16,"luhn":true},"scheme":"visa","type":"debit","brand":"Visa/Dankort","prepaid":false,
+             "country":{"numeric":"208","alpha2":"DK","name":"Denmark","emoji":"x","currency":"DKK","latitude":56,"longitude":10},
+             "bank":{"name":"Jyske Bank","url":"www.jyskebank.dk","phone":"+4589893300","city":"Hjørring"}}
+            """;
+
+    private HttpServer server;
+    private BinlistProperties properties;
+    private BinlistClient binlistClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/45717360", exchange -> respond(exchange, 200, CARD_INFO));
+        server.createContext("/00000000", exchange -> respond(exchange, 404, ""));
+        server.createContext("/33333333", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "42");
+            respond(exchange, 429, "");
+        });
+        server.createContext("/11111111", exchange -> respond(exchange, 200, "{not json"));
+        server.createContext("/22222222", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, CARD_INFO);
+        });
+        server.start();
+
+        properties = new BinlistProperties();
+        properties.setUrl("http://localhost:" + server.getAddress().getPort() + "/");
+        binlistClient = newClient(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void lookup() {
+        CardInfoResponse cardInfoResponse = binlistClient.lookup("45717360").join();
+
+        assertEquals("visa", cardInfoResponse.getScheme());
+        assertEquals("DK", cardInfoResponse.getCountry().getAlpha2());
+        assertEquals("debit", cardInfoResponse.getType());
+        assertNull(cardInfoResponse.getBank());
+    }
+
+    @Test
+    void lookupErrorStatus() {
+        ExternalApiException exception = failure(binlistClient, "00000000");
+
+        assertEquals("External API returned an error: 404 NOT_FOUND", exception.getMessage());
+    }
+
+    @Test
+    void lookupTooManyRequests() {
+        ExternalApiException exception = failure(binlistClient, "33333333");
+
+        assertEquals(429, exception.getStatusCode());
+        assertEquals(Duration.ofSeconds(42), exception.getRetryAfter());
+    }
+
+    @Test
+    void parseRetryAfter() {
+        assertEquals(Duration.ofSeconds(120), BinlistClient.parseRetryAfter("120"));
+        assertEquals(Duration.ZERO, BinlistClient.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(BinlistClient.parseRetryAfter("soon"));
+    }
+
+    @Test
+    void lookupInvalidBody() {
+        ExternalApiException exception = failure(binlistClient, "11111111");
+
+        assertEquals("An error occurred while communicating with the external API.", exception.getMessage());
+    }
+
+    @Test
+    void lookupTimeout() {
+        properties.setRequestTimeout(Duration.ofMillis(300));
+
+        ExternalApiException exception = failure(newClient(properties), "22222222");
+
+        assertEquals("Failed to connect to external API. Please try again later.", exception.getMessage());
+    }
+
+    @Test
+    void lookupConnectionRefused() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        properties.setUrl("http://localhost:" + closedPort + "/");
+
+        ExternalApiException exception = failure(newClient(properties), "45717360");
+
+        assertEquals("Failed to connect to external API. Please try again later.", exception.getMessage());
+    }
+
+    private BinlistClient newClient(BinlistProperties binlistProperties) {
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(binlistProperties.getConnectTimeout()).build();
+        ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return new BinlistClient(httpClient, objectMapper, binlistProperties);
+    }
+
+    private ExternalApiException failure(BinlistClient client, String bin) {
+        CompletionException exception = assertThrows(CompletionException.class, () -> client.lookup(bin).join());
+        return assertInstanceOf(ExternalApiException.class, exception.getCause());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,49 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BinlistHealthIndicatorTest {
+    @Mock
+    private CircuitBreaker binlistCircuitBreaker;
+
+    @InjectMocks
+    private BinlistHealthIndicator binlistHealthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(binlistCircuitBreaker.getRemainingOpenDuration()).thenReturn(Duration.ZERO);
+    }
+
+    @Test
+    void upWhenClosed() {
+        when(binlistCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.CLOSED);
+
+        Health health = binlistHealthIndicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(CircuitBreaker.State.CLOSED, health.getDetails().get("state"));
+    }
+
+    @Test
+    void degradedWhenOpen() {
+        when(binlistCircuitBreaker.getState()).thenReturn(CircuitBreaker.State.OPEN);
+        when(binlistCircuitBreaker.getRemainingOpenDuration()).thenReturn(Duration.ofSeconds(20));
+
+        Health health = binlistHealthIndicator.health();
+
+        assertEquals(BinlistHealthIndicator.DEGRADED, health.getStatus());
+        assertEquals("PT20S", health.getDetails().get("retryAfter"));
+    }
+}
@@ -0,0 +1,77 @@
+package org.travel.cardcostapi.clients;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinlistResponseReaderTest {
+    private final BinlistResponseReader reader = new BinlistResponseReader(new JsonFactory());
+
+    @Test
+    void readsSchemeTypeAndCountry() throws IOException {
+        CardInfoResponse cardInfoResponse = read("""
+                {"number":{"length":16,"luhn":true},"scheme":"visa","type":"debit","brand":"Visa/Dankort","prepaid":false,
+                 "country":{"numeric":"208","alpha2":"DK","name":"Denmark","emoji":"\\uD83C\\uDDE9\\uD83C\\uDDF0","currency":"DKK","latitude":56,"longitude":10},
+                 "bank":{"name":"Jyske Bank","url":"www.jyskebank.dk","phone":"+4589893300","city":"Hjørring"}}
+                """);
+
+        assertEquals("visa", cardInfoResponse.getScheme());
+        assertEquals("debit", cardInfoResponse.getType());
+        assertEquals("DK", cardInfoResponse.getCountry().getAlpha2());
+        assertNull(cardInfoResponse.getCountry().getName());
+        assertNull(cardInfoResponse.getNumber());
+        assertNull(cardInfoResponse.getBank());
+    }
+
+    @Test
+    void skipsNestedValuesInAnyOrder() throws IOException {
+        CardInfoResponse cardInfoResponse = read("""
+                {"bank":{"name":"Bank","tags":[{"alpha2":"XX"},[1,2]]},"country":{"alpha2":"GR","extra":{"alpha2":"XX"}},"scheme":null}
+                """);
+
+        assertNull(cardInfoResponse.getScheme());
+        assertNull(cardInfoResponse.getType());
+        assertEquals("GR", cardInfoResponse.getCountry().getAlpha2());
+    }
+
+    @Test
+    void stopsReadingOnceAllFieldsAreFound() throws IOException {
+        CardInfoResponse cardInfoResponse = read("{\"scheme\":\"visa\",\"type\":\"credit\",\"country\":{\"alpha2\":\"US\"},\"bank\":{not json");
+
+        assertEquals("US", cardInfoResponse.getCountry().getAlpha2());
+    }
+
+    @Test
+    void readsMissingAndNullCountry() throws IOException {
+        assertNull(read("{\"scheme\":\"visa\"}").getCountry());
+        assertNull(read("{\"country\":null}").getCountry());
+        assertNull(read("{\"country\":{\"name\":\"Denmark\"}}").getCountry().getAlpha2());
+        assertNull(read("null"));
+    }
+
+    @Test
+    void readsScalarsAsText() throws IOException {
+        CardInfoResponse cardInfoResponse = read("{\"scheme\":1,\"type\":true,\"country\":{\"alpha2\":\"DK\"}}");
+
+        assertEquals("1", cardInfoResponse.getScheme());
+        assertEquals("true", cardInfoResponse.getType());
+    }
+
+    @Test
+    void rejectsInvalidResponses() {
+        assertThrows(IOException.class, () -> read("{not json"));
+        assertThrows(IOException.class, () -> read("[]"));
+        assertThrows(IOException.class, () -> read("{\"country\":\"DK\"}"));
+        assertThrows(IOException.class, () -> read("{\"country\":{\"alpha2\":{\"code\":\"DK\"}}}"));
+        assertThrows(IOException.class, () -> read("{\"country\":{\"alpha2\":\"DK\""));
+    }
+
+    private CardInfoResponse read(String body) throws IOException {
+        return reader.read(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
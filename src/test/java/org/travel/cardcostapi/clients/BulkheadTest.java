@@ -0,0 +1,105 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.BulkheadProperties;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+    private BulkheadProperties properties;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BulkheadProperties();
+        properties.setMaxConcurrentCalls(2);
+        properties.setMaxWaitingCalls(1);
+        properties.setMaxWait(Duration.ofMillis(50));
+        properties.setRetryAfter(Duration.ofSeconds(3));
+        bulkhead = new Bulkhead(properties);
+    }
+
+    @Test
+    void acquiresUpToMaxConcurrentCalls() {
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        assertEquals(2, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    void rejectsAfterMaxWait() {
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class, bulkhead::acquire);
+
+        assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(0, bulkhead.getWaitingCount());
+    }
+
+    @Test
+    void waiterGetsReleasedSlot() throws Exception {
+        properties.setMaxWait(Duration.ofSeconds(5));
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(bulkhead::acquire);
+        awaitWaiting(1);
+        bulkhead.release();
+
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(2, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getWaitingCount());
+    }
+
+    @Test
+    void rejectsBeyondMaxWaitingCallsWithoutWaiting() throws Exception {
+        properties.setMaxWait(Duration.ofSeconds(5));
+        bulkhead.acquire();
+        bulkhead.acquire();
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            started.countDown();
+            bulkhead.acquire();
+        });
+        started.await();
+        awaitWaiting(1);
+
+        long start = System.nanoTime();
+        assertThrows(ServiceUnavailableException.class, bulkhead::acquire);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, bulkhead.getRejectedCount());
+        bulkhead.release();
+        waiter.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void releaseFreesSlot() {
+        bulkhead.acquire();
+        bulkhead.acquire();
+        bulkhead.release();
+
+        bulkhead.acquire();
+
+        assertEquals(2, bulkhead.getActiveCount());
+    }
+
+    private void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getWaitingCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, bulkhead.getWaitingCount());
+    }
+}
@@ -0,0 +1,138 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.CircuitBreakerProperties;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(3);
+
+    private CircuitBreakerProperties properties;
+    private AtomicLong time;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CircuitBreakerProperties();
+        properties.setSlidingWindowSize(10);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallRateThreshold(80);
+        properties.setSlowCallDuration(Duration.ofSeconds(2));
+        properties.setWaitDurationInOpenState(Duration.ofSeconds(30));
+        properties.setPermittedCallsInHalfOpenState(2);
+        time = new AtomicLong();
+    }
+
+    @Test
+    void staysClosedBelowMinimumNumberOfCalls() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, time::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onError(FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(-1f, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void opensOnFailureRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, time::get);
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onError(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.onError(FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+        assertEquals(Duration.ofSeconds(30), circuitBreaker.getRemainingOpenDuration());
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, time::get);
+
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onSuccess(SLOW);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void oldCallsLeaveTheWindow() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, time::get);
+
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onError(FAST);
+            circuitBreaker.onSuccess(FAST);
+            circuitBreaker.onSuccess(FAST);
+            circuitBreaker.onSuccess(FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(20f, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulTrialCalls() {
+        CircuitBreaker circuitBreaker = open();
+        time.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(-1f, circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    void releasedPermissionIsGivenToAnotherTrialCall() {
+        CircuitBreaker circuitBreaker = open();
+        time.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.releasePermission();
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void halfOpenReopensOnFailedTrialCall() {
+        CircuitBreaker circuitBreaker = open();
+        time.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError(FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private CircuitBreaker open() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(properties, time::get);
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onError(FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,140 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.configs.RateLimitProperties;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+    private RateLimitProperties properties;
+    private AtomicLong time;
+    private List<Long> sleeps;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRequestsPerMinute(60);
+        properties.setBurst(5);
+        properties.setInteractiveReserve(2);
+        properties.setInteractiveMaxWait(Duration.ofSeconds(2));
+        properties.setBatchMaxWait(Duration.ofSeconds(10));
+        properties.setDefaultRetryAfter(Duration.ofSeconds(60));
+        time = new AtomicLong();
+        sleeps = new ArrayList<>();
+        rateLimiter = new RateLimiter(properties, time::get, nanos -> {
+            sleeps.add(nanos);
+            time.addAndGet(nanos);
+        });
+    }
+
+    @Test
+    void burstIsGrantedWithoutWaiting() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        }
+
+        assertTrue(sleeps.isEmpty());
+        assertEquals(5, rateLimiter.getGrantedCount());
+    }
+
+    @Test
+    void interactiveWaitsForTheNextPermit() {
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        }
+
+        rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+
+        assertEquals(List.of(TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(1)), sleeps);
+    }
+
+    @Test
+    void interactiveIsRejectedBeyondMaxWait() {
+        AtomicLong frozen = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(properties, frozen::get, nanos -> { });
+        for (int i = 0; i < 7; i++) {
+            limiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        }
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> limiter.acquire(RateLimiter.Priority.INTERACTIVE));
+
+        assertEquals(Duration.ofSeconds(3), exception.getRetryAfter());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void batchLeavesTheInteractiveReserve() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(RateLimiter.Priority.BATCH);
+        }
+        assertTrue(sleeps.isEmpty());
+
+        rateLimiter.acquire(RateLimiter.Priority.BATCH);
+        assertEquals(List.of(TimeUnit.SECONDS.toNanos(1)), sleeps);
+
+        sleeps.clear();
+        rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void batchYieldsToInteractiveReservations() {
+        AtomicLong frozen = new AtomicLong();
+        List<Long> batchSleeps = new ArrayList<>();
+        RateLimiter limiter = new RateLimiter(properties, frozen::get, nanos -> {
+            batchSleeps.add(nanos);
+            frozen.addAndGet(nanos);
+        });
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        }
+
+        limiter.acquire(RateLimiter.Priority.BATCH);
+
+        //the batch call needs a permit beyond the two reserved for interactive calls
+        assertEquals(TimeUnit.SECONDS.toNanos(3), batchSleeps.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void batchIsRejectedBeyondMaxWait() {
+        properties.setBatchMaxWait(Duration.ofSeconds(2));
+        RateLimiter limiter = new RateLimiter(properties, time::get, nanos -> time.addAndGet(nanos));
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> limiter.acquire(RateLimiter.Priority.BATCH));
+    }
+
+    @Test
+    void pauseHonoursRetryAfter() {
+        properties.setInteractiveMaxWait(Duration.ofSeconds(60));
+
+        assertEquals(Duration.ofSeconds(30), rateLimiter.pause(Duration.ofSeconds(30)));
+        assertEquals(0, rateLimiter.getAvailablePermits());
+
+        rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE);
+        assertEquals(List.of(TimeUnit.SECONDS.toNanos(30)), sleeps);
+    }
+
+    @Test
+    void pauseWithoutRetryAfterUsesDefault() {
+        assertEquals(Duration.ofSeconds(60), rateLimiter.pause(null));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> rateLimiter.acquire(RateLimiter.Priority.INTERACTIVE));
+        assertEquals(Duration.ofSeconds(60), exception.getRetryAfter());
+    }
+}
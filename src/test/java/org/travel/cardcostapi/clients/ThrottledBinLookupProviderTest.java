@@ -0,0 +1,159 @@
+package org.travel.cardcostapi.clients;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.travel.cardcostapi.configs.BulkheadProperties;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ThrottledBinLookupProviderTest {
+    private static final String BIN = "45717360";
+
+    @Mock
+    private BinLookupProvider provider;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    private Bulkhead bulkhead;
+    private ExecutorService executor;
+    private ThrottledBinLookupProvider throttled;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        BulkheadProperties bulkheadProperties = new BulkheadProperties();
+        bulkheadProperties.setMaxConcurrentCalls(1);
+        bulkheadProperties.setMaxWaitingCalls(0);
+        bulkhead = new Bulkhead(bulkheadProperties);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        throttled = new ThrottledBinLookupProvider(provider, rateLimiter, bulkhead, executor);
+        when(provider.getName()).thenReturn("binlist");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void takesPermitWithCallerPriorityAndReleasesSlot() {
+        when(provider.lookup(BIN)).thenReturn(CompletableFuture.completedFuture(cardInfo("US")));
+
+        assertEquals("US", throttled.lookup(BIN, RateLimiter.Priority.BATCH).join().getCountry().getAlpha2());
+
+        verify(rateLimiter, times(1)).acquire(RateLimiter.Priority.BATCH);
+        assertEquals("binlist", throttled.getName());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    void rateLimitedLookupIsRejectedWithoutSlot() {
+        doThrow(new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", Duration.ofSeconds(6)))
+                .when(rateLimiter).acquire(RateLimiter.Priority.INTERACTIVE);
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> throttled.lookup(BIN).join());
+
+        assertEquals(Duration.ofSeconds(6), ((ServiceUnavailableException) exception.getCause()).getRetryAfter());
+        assertEquals(0, bulkhead.getRejectedCount());
+        verify(provider, never()).lookup(anyString());
+    }
+
+    @Test
+    void fullBulkheadRejectsLookup() {
+        CompletableFuture<CardInfoResponse> inFlight = new CompletableFuture<>();
+        when(provider.lookup(BIN)).thenReturn(inFlight);
+        CompletableFuture<CardInfoResponse> first = throttled.lookup(BIN);
+        await(() -> bulkhead.getActiveCount() == 1);
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> throttled.lookup(BIN).join());
+
+        assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+        inFlight.complete(cardInfo("US"));
+        assertEquals("US", first.join().getCountry().getAlpha2());
+        assertEquals(0, bulkhead.getActiveCount());
+        verify(provider, times(1)).lookup(BIN);
+    }
+
+    @Test
+    void tooManyRequestsPausesThisProvider() {
+        when(provider.lookup(BIN)).thenReturn(CompletableFuture.failedFuture(
+                new ExternalApiException("External API returned an error: 429 TOO_MANY_REQUESTS", 429, Duration.ofSeconds(40))));
+        when(rateLimiter.pause(Duration.ofSeconds(40))).thenReturn(Duration.ofSeconds(40));
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> throttled.lookup(BIN).join());
+
+        assertEquals(Duration.ofSeconds(40), ((ServiceUnavailableException) exception.getCause()).getRetryAfter());
+        verify(rateLimiter, times(1)).pause(Duration.ofSeconds(40));
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    void failurePassesThroughAndReleasesSlot() {
+        when(provider.lookup(BIN)).thenReturn(CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later.")));
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> throttled.lookup(BIN).join());
+
+        assertInstanceOf(ExternalApiException.class, exception.getCause());
+        verify(rateLimiter, never()).pause(any());
+        assertEquals(0, bulkhead.getActiveCount());
+    }
+
+    @Test
+    void batchLookupsParkedForRateLimitLeaveBulkheadToInteractive() throws Exception {
+        CountDownLatch parked = new CountDownLatch(2);
+        CountDownLatch quota = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            parked.countDown();
+            quota.await();
+            return null;
+        }).when(rateLimiter).acquire(RateLimiter.Priority.BATCH);
+        when(provider.lookup(anyString())).thenReturn(CompletableFuture.completedFuture(cardInfo("US")));
+
+        try {
+            CompletableFuture<CardInfoResponse> first = throttled.lookup("40000012", RateLimiter.Priority.BATCH);
+            CompletableFuture<CardInfoResponse> second = throttled.lookup("40000112", RateLimiter.Priority.BATCH);
+            assertTrue(parked.await(5, TimeUnit.SECONDS));
+
+            assertEquals("US", throttled.lookup(BIN, RateLimiter.Priority.INTERACTIVE).get(5, TimeUnit.SECONDS).getCountry().getAlpha2());
+
+            quota.countDown();
+            assertEquals("US", first.get(5, TimeUnit.SECONDS).getCountry().getAlpha2());
+            assertEquals("US", second.get(5, TimeUnit.SECONDS).getCountry().getAlpha2());
+        } finally {
+            quota.countDown();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static CardInfoResponse cardInfo(String alpha2) {
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        country.setAlpha2(alpha2);
+        CardInfoResponse cardInfoResponse = new CardInfoResponse();
+        cardInfoResponse.setCountry(country);
+        return cardInfoResponse;
+    }
+}
@@ -0,0 +1,54 @@
+package org.travel.cardcostapi.configs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.mockito.Mockito.*;
+
+class DataSourceConfigTest {
+    private DataSource primaryDataSource;
+    private DataSource replicaDataSource;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primaryDataSource = mock(DataSource.class);
+        replicaDataSource = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+        when(primaryConnection.getAutoCommit()).thenReturn(true);
+        when(primaryConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+
+        dataSource = new DataSourceConfig().dataSource(primaryDataSource, replicaDataSource);
+    }
+
+    @Test
+    void readOnlyConnectionsUseTheReplica() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+            connection.createStatement();
+        }
+
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+    }
+
+    @Test
+    void otherConnectionsUseThePrimary() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.createStatement();
+        }
+
+        verify(primaryConnection).createStatement();
+        verifyNoInteractions(replicaConnection);
+    }
+}
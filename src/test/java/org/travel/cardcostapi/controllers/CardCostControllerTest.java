@@ -1,33 +1,53 @@
 package org.travel.cardcostapi.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.client.RestTemplate;
 import org.travel.cardcostapi.exceptions.BadRequestException;
 import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
 import org.travel.cardcostapi.exceptions.GlobalExceptionHandler;
+import org.travel.cardcostapi.exceptions.PreconditionFailedException;
 import org.travel.cardcostapi.exceptions.ResourceNotFoundException;
+import org.travel.cardcostapi.metrics.CardNumberRejections;
+import org.travel.cardcostapi.metrics.PhaseTimers;
 import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
+import org.travel.cardcostapi.responses.BatchPaymentCardCostResponse;
+import org.travel.cardcostapi.responses.CardCostImportResponse;
+import org.travel.cardcostapi.requests.BatchPaymentCardCostRequest;
 import org.travel.cardcostapi.requests.CreateCardCostRequest;
 import org.travel.cardcostapi.requests.PaymentCardCostRequest;
 import org.travel.cardcostapi.requests.UpdateCardCostRequest;
+import org.travel.cardcostapi.services.BatchPaymentCardCostService;
+import org.travel.cardcostapi.services.CardCostImportService;
 import org.travel.cardcostapi.services.CardCostService;
+import org.travel.cardcostapi.utils.CardNumberValidator;
+import org.travel.cardcostapi.utils.ETags;
 
+import java.io.BufferedReader;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,6 +62,18 @@ class CardCostControllerTest {
     @Mock
     private CardCostService cardCostService;
 
+    @Mock
+    private BatchPaymentCardCostService batchPaymentCardCostService;
+
+    @Mock
+    private CardCostImportService cardCostImportService;
+
+    @Spy
+    private PhaseTimers phaseTimers = new PhaseTimers(new SimpleMeterRegistry());
+
+    @Spy
+    private CardNumberRejections cardNumberRejections = new CardNumberRejections(new SimpleMeterRegistry());
+
     @InjectMocks
     private CardCostController cardCostController;
 
@@ -51,6 +83,7 @@ class CardCostControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(cardCostController, "objectMapper", objectMapper);
         // Standalone setup with exception handling
         mockMvc = MockMvcBuilders.standaloneSetup(cardCostController)
                 .setControllerAdvice(new GlobalExceptionHandler())
@@ -145,11 +178,138 @@ class CardCostControllerTest {
                 .andExpect(jsonPath("$[0].country").value("US"))
                 .andExpect(jsonPath("$[0].cost").value(5.0))
                 .andExpect(jsonPath("$[1].country").value("GR"))
-                .andExpect(jsonPath("$[1].cost").value(15.0));
+                .andExpect(jsonPath("$[1].cost").value(15.0))
+                .andExpect(header().string("ETag", ETags.ofCardCosts(cardCosts)));
 
         verify(cardCostService, times(1)).getAllCardCost();
     }
 
+    @Test
+    void getAllCardCostsNotModified() throws Exception {
+        List<CardCostVersion> versions = List.of(new CardCostVersion(2L, 1L), new CardCostVersion(1L, 1L));
+        String eTag = ETags.ofCardCosts(List.of(new CardCost(1L, "US", 5.0, 1L), new CardCost(2L, "GR", 15.0, 1L)));
+
+        when(cardCostService.getAllCardCostVersions()).thenReturn(versions);
+
+        mockMvc.perform(get("/card-costs")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+
+        verify(cardCostService, never()).getAllCardCost();
+    }
+
+    @Test
+    void getAllCardCostsModified() throws Exception {
+        List<CardCost> cardCosts = List.of(new CardCost(1L, "US", 6.0, 2L), new CardCost(2L, "GR", 15.0, 1L));
+        String previousETag = ETags.ofVersions(List.of(new CardCostVersion(1L, 1L), new CardCostVersion(2L, 1L)));
+
+        when(cardCostService.getAllCardCostVersions()).thenReturn(List.of(new CardCostVersion(1L, 2L), new CardCostVersion(2L, 1L)));
+        when(cardCostService.getAllCardCost()).thenReturn(cardCosts);
+
+        mockMvc.perform(get("/card-costs")
+                        .header("If-None-Match", previousETag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cost").value(6.0))
+                .andExpect(header().string("ETag", ETags.ofCardCosts(cardCosts)));
+    }
+
+    @Test
+    void getCardCostPage() throws Exception {
+        List<CardCost> cardCosts = Arrays.asList(
+                new CardCost(3L, "US", 5.0, 1L),
+                new CardCost(7L, "GR", 15.0, 1L)
+        );
+
+        when(cardCostService.getCardCostPage(2L, 2)).thenReturn(cardCosts);
+
+        mockMvc.perform(get("/card-costs/page")
+                        .param("after_id", "2")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[1].country").value("GR"))
+                .andExpect(jsonPath("$.next_after_id").value(7));
+    }
+
+    @Test
+    void getCardCostLastPage() throws Exception {
+        when(cardCostService.getCardCostPage(0L, 100)).thenReturn(List.of(new CardCost(1L, "US", 5.0, 1L)));
+
+        mockMvc.perform(get("/card-costs/page"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].country").value("US"))
+                .andExpect(jsonPath("$.next_after_id").doesNotExist());
+    }
+
+    @Test
+    void getCardCostPageBadRequest() throws Exception {
+        when(cardCostService.getCardCostPage(0L, 5000)).thenThrow(new BadRequestException("limit must be between 1 and 1000"));
+
+        mockMvc.perform(get("/card-costs/page").param("limit", "5000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("limit must be between 1 and 1000"));
+    }
+
+    @Test
+    void streamAllCardCost() throws Exception {
+        when(cardCostService.streamAllCardCost(any())).thenAnswer(invocation -> {
+            Consumer<CardCost> consumer = invocation.getArgument(0);
+            consumer.accept(new CardCost(1L, "US", 5.0, 1L));
+            consumer.accept(new CardCost(2L, "GR", 15.0, 1L));
+            return 2L;
+        });
+
+        MvcResult mvcResult = mockMvc.perform(get("/card-costs/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"country\":\"US\",\"cost\":5.0,\"version\":1}\n{\"id\":2,\"country\":\"GR\",\"cost\":15.0,\"version\":1}\n"));
+    }
+
+    @Test
+    void importCardCostsCsv() throws Exception {
+        when(cardCostImportService.importCardCosts(any(), eq(CardCostImportService.Format.CSV))).thenAnswer(invocation -> {
+            assertEquals("US,5", invocation.<BufferedReader>getArgument(0).readLine());
+            return new CardCostImportResponse(1, 0, 0, 1, List.of(new CardCostImportResponse.LineError(2, "Expected 'country,cost'")));
+        });
+
+        mockMvc.perform(post("/card-costs/import")
+                        .contentType("text/csv")
+                        .content("US,5\nGR\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    void importCardCostsNdjson() throws Exception {
+        when(cardCostImportService.importCardCosts(any(), eq(CardCostImportService.Format.NDJSON)))
+                .thenReturn(new CardCostImportResponse(0, 2, 0, 0, List.of()));
+
+        mockMvc.perform(post("/card-costs/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"country\":\"US\",\"cost\":5}\n{\"country\":\"GR\",\"cost\":15}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+    }
+
+    @Test
+    void importCardCostsUnsupportedContentType() throws Exception {
+        mockMvc.perform(post("/card-costs/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(cardCostImportService);
+    }
+
     @Test
     void getAllCardCostsResourceNotFound() throws Exception {
         when(cardCostService.getAllCardCost()).thenThrow(new ResourceNotFoundException("No card costs found"));
@@ -173,11 +333,28 @@ class CardCostControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.country").value("US"))
-                .andExpect(jsonPath("$.cost").value(5.0));
+                .andExpect(jsonPath("$.cost").value(5.0))
+                .andExpect(header().string("ETag", "\"1\""));
 
         verify(cardCostService, times(1)).getCardCostById(1L);
     }
 
+    @Test
+    void getCardCostByIdNotModified() throws Exception {
+        when(cardCostService.getCardCostById(1L)).thenReturn(new CardCost(1L, "US", 5.0, 1L));
+
+        mockMvc.perform(get("/card-costs/1")
+                        .header("If-None-Match", "W/\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/card-costs/1")
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cost").value(5.0));
+    }
+
     @Test
     void getCardCostByIdResourceNotFound() throws Exception {
         when(cardCostService.getCardCostById(1L)).thenThrow(new ResourceNotFoundException("Card Cost with Id: 1 do not exists!"));
@@ -203,7 +380,7 @@ class CardCostControllerTest {
         updatedCardCost.setCountry("USA");
         updatedCardCost.setCost(25.0);
 
-        when(cardCostService.updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class))).thenReturn(updatedCardCost);
+        when(cardCostService.updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull())).thenReturn(updatedCardCost);
 
         mockMvc.perform(put("/card-costs/{cardCostId}", cardCostId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -213,7 +390,7 @@ class CardCostControllerTest {
                 .andExpect(jsonPath("$.country").value("USA"))
                 .andExpect(jsonPath("$.cost").value(25.0));
 
-        verify(cardCostService, times(1)).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class));
+        verify(cardCostService, times(1)).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull());
     }
 
     @Test
@@ -230,7 +407,7 @@ class CardCostControllerTest {
                 .andExpect(result -> assertInstanceOf(BadRequestException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.message").value("Country cannot be null or empty"));
 
-        verify(cardCostService, never()).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class));
+        verify(cardCostService, never()).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull());
     }
 
     @Test
@@ -247,7 +424,7 @@ class CardCostControllerTest {
                 .andExpect(result -> assertInstanceOf(BadRequestException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.message").value("Cost cannot be negative"));
 
-        verify(cardCostService, never()).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class));
+        verify(cardCostService, never()).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull());
     }
 
     @Test
@@ -257,7 +434,7 @@ class CardCostControllerTest {
         request.setCountry("GR");
         request.setCost(25);
 
-        when(cardCostService.updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class)))
+        when(cardCostService.updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull()))
                 .thenThrow(new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!"));
 
         mockMvc.perform(put("/card-costs/{cardCostId}", cardCostId)
@@ -267,26 +444,52 @@ class CardCostControllerTest {
                 .andExpect(result -> assertInstanceOf(ResourceNotFoundException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.message").value("Card Cost with Id: " + cardCostId + " do not exists!"));
 
-        verify(cardCostService, times(1)).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class));
+        verify(cardCostService, times(1)).updateCardCostById(eq(cardCostId), any(UpdateCardCostRequest.class), isNull());
     }
 
     @Test
     void deleteCardCostSuccess() throws Exception {
         Long cardCostId = 1L;
 
-        doNothing().when(cardCostService).deleteCardCostById(cardCostId);
+        doNothing().when(cardCostService).deleteCardCostById(cardCostId, null);
 
         mockMvc.perform(delete("/card-costs/{cardCostId}", cardCostId))
                 .andExpect(status().isNoContent());
 
-        verify(cardCostService, times(1)).deleteCardCostById(cardCostId);
+        verify(cardCostService, times(1)).deleteCardCostById(cardCostId, null);
+    }
+
+    @Test
+    void updateCardCostPreconditionFailed() throws Exception {
+        UpdateCardCostRequest request = new UpdateCardCostRequest();
+        request.setCountry("GR");
+        request.setCost(25);
+
+        when(cardCostService.updateCardCostById(eq(1L), any(UpdateCardCostRequest.class), eq("\"1\"")))
+                .thenThrow(new PreconditionFailedException("Card Cost with Id: 1 was changed, current ETag: \"2\""));
+
+        mockMvc.perform(put("/card-costs/{cardCostId}", 1L)
+                        .header("If-Match", "\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Card Cost with Id: 1 was changed, current ETag: \"2\""));
+    }
+
+    @Test
+    void deleteCardCostIfMatch() throws Exception {
+        mockMvc.perform(delete("/card-costs/{cardCostId}", 1L)
+                        .header("If-Match", "\"3\""))
+                .andExpect(status().isNoContent());
+
+        verify(cardCostService, times(1)).deleteCardCostById(1L, "\"3\"");
     }
 
     @Test
     void deleteCardCostResourceNotFound() throws Exception {
         Long cardCostId = 1L;
 
-        doThrow(new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!")).when(cardCostService).deleteCardCostById(cardCostId);
+        doThrow(new ResourceNotFoundException("Card Cost with Id: " + cardCostId + " do not exists!")).when(cardCostService).deleteCardCostById(cardCostId, null);
 
         mockMvc.perform(delete("/card-costs/{cardCostId}", cardCostId)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -294,7 +497,7 @@ class CardCostControllerTest {
                 .andExpect(result -> assertInstanceOf(ResourceNotFoundException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.message").value("Card Cost with Id: " + cardCostId + " do not exists!"));
 
-        verify(cardCostService, times(1)).deleteCardCostById(eq(cardCostId));
+        verify(cardCostService, times(1)).deleteCardCostById(eq(cardCostId), isNull());
     }
 
     @Test
@@ -363,10 +566,25 @@ class CardCostControllerTest {
         verify(cardCostService, never()).getPaymentCardCost(any(PaymentCardCostRequest.class));
     }
 
+    @Test
+    void getPaymentCardCostInvalidChecksum() throws Exception {
+        PaymentCardCostRequest request = new PaymentCardCostRequest();
+        request.setCardNumber("4111111111111112");
+
+        mockMvc.perform(post("/payment-card-cost")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("CardNumber checksum is invalid"));
+
+        verify(cardCostService, never()).getPaymentCardCost(any(PaymentCardCostRequest.class));
+        assertEquals(1, cardNumberRejections.count(CardNumberValidator.Rejection.LUHN));
+    }
+
     @Test
     void getPaymentCardCostExternalApiException() throws Exception {
         PaymentCardCostRequest request = new PaymentCardCostRequest();
-        request.setCardNumber("1234567890123456");
+        request.setCardNumber("4111111111111111");
 
         when(cardCostService.getPaymentCardCost(any(PaymentCardCostRequest.class))).thenThrow(new ExternalApiException("Invalid response from external API."));
 
@@ -380,10 +598,26 @@ class CardCostControllerTest {
         verify(cardCostService, times(1)).getPaymentCardCost(any(PaymentCardCostRequest.class));
     }
 
+    @Test
+    void getPaymentCardCostServiceUnavailableException() throws Exception {
+        PaymentCardCostRequest request = new PaymentCardCostRequest();
+        request.setCardNumber("4111111111111111");
+
+        when(cardCostService.getPaymentCardCost(any(PaymentCardCostRequest.class)))
+                .thenThrow(new ServiceUnavailableException("External API is unavailable. Please try again later.", Duration.ofMillis(12_300)));
+
+        mockMvc.perform(post("/payment-card-cost")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "13"))
+                .andExpect(jsonPath("$.message").value("External API is unavailable. Please try again later."));
+    }
+
     @Test
     void getPaymentCardCostBadRequestException() throws Exception {
         PaymentCardCostRequest request = new PaymentCardCostRequest();
-        request.setCardNumber("1234567890123456");
+        request.setCardNumber("4111111111111111");
 
         when(cardCostService.getPaymentCardCost(any(PaymentCardCostRequest.class)))
                 .thenThrow(new BadRequestException("Country code is null or empty. Cause card_number is invalid."));
@@ -402,7 +636,7 @@ class CardCostControllerTest {
     void getPaymentCardCostResourceNotFoundException() throws Exception {
         String countryCode = "GR";
         PaymentCardCostRequest request = new PaymentCardCostRequest();
-        request.setCardNumber("1234567890123456");
+        request.setCardNumber("4111111111111111");
 
         when(cardCostService.getPaymentCardCost(any(PaymentCardCostRequest.class)))
                 .thenThrow(new ResourceNotFoundException("Card Cost with country: " + countryCode + " do not exists!"));
@@ -416,4 +650,44 @@ class CardCostControllerTest {
 
         verify(cardCostService, times(1)).getPaymentCardCost(any(PaymentCardCostRequest.class));
     }
+
+    @Test
+    void getPaymentCardCostsSuccess() throws Exception {
+        BatchPaymentCardCostRequest request = new BatchPaymentCardCostRequest();
+        request.setCardNumbers(List.of("4111111111111111", "41111"));
+
+        when(batchPaymentCardCostService.getPaymentCardCosts(request.getCardNumbers())).thenReturn(List.of(
+                BatchPaymentCardCostResponse.Item.success("4111**********11", "US", 5.0),
+                BatchPaymentCardCostResponse.Item.failure("*****", 400, "CardNumber must be greater than 8 and less than 19 digits")
+        ));
+
+        mockMvc.perform(post("/payment-card-cost/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].status").value(200))
+                .andExpect(jsonPath("$.results[0].country").value("US"))
+                .andExpect(jsonPath("$.results[0].cost").value(5.0))
+                .andExpect(jsonPath("$.results[0].error").doesNotExist())
+                .andExpect(jsonPath("$.results[1].status").value(400))
+                .andExpect(jsonPath("$.results[1].cost").doesNotExist())
+                .andExpect(jsonPath("$.results[1].error").value("CardNumber must be greater than 8 and less than 19 digits"));
+
+        verify(batchPaymentCardCostService, times(1)).getPaymentCardCosts(request.getCardNumbers());
+    }
+
+    @Test
+    void getPaymentCardCostsValidationError() throws Exception {
+        BatchPaymentCardCostRequest request = new BatchPaymentCardCostRequest();
+        request.setCardNumbers(List.of());
+
+        mockMvc.perform(post("/payment-card-cost/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertInstanceOf(BadRequestException.class, result.getResolvedException()))
+                .andExpect(jsonPath("$.message").value("CardNumbers cannot be null or empty"));
+
+        verify(batchPaymentCardCostService, never()).getPaymentCardCosts(any());
+    }
 }
\ No newline at end of file
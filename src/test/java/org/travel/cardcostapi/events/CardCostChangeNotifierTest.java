@@ -0,0 +1,113 @@
+package org.travel.cardcostapi.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.configs.CardCostNotifyProperties;
+import org.travel.cardcostapi.models.CardCost;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardCostChangeNotifierTest {
+    @Spy
+    private CardCostNotifyProperties cardCostNotifyProperties = new CardCostNotifyProperties();
+
+    @Mock
+    private CardCostLookupTable cardCostLookupTable;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private CardCostChangeNotifier cardCostChangeNotifier;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void disabledWithoutPostgres() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        cardCostChangeNotifier.start();
+        cardCostChangeNotifier.onCardCostChanged(CardCostChangedEvent.created(new CardCost(1L, "US", 5.0, 0L)));
+
+        assertFalse(cardCostChangeNotifier.isEnabled());
+        verify(connection).close();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void disabledByConfiguration() throws Exception {
+        cardCostNotifyProperties.setEnabled(false);
+
+        cardCostChangeNotifier.start();
+
+        assertFalse(cardCostChangeNotifier.isEnabled());
+        verifyNoInteractions(dataSource);
+    }
+
+    @Test
+    void changesAreNotifiedOnTheChannel() throws Exception {
+        ReflectionTestUtils.setField(cardCostChangeNotifier, "enabled", true);
+
+        cardCostChangeNotifier.onCardCostChanged(CardCostChangedEvent.updated("US", new CardCost(1L, "CA", 6.0, 2L)));
+        cardCostChangeNotifier.onCardCostChanged(CardCostChangedEvent.deleted("GR"));
+
+        ArgumentCaptor<Object> payloads = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(2)).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class), eq("card_cost_changed"), payloads.capture());
+        CardCostChangeNotifier.Notification updated = objectMapper.readValue((String) payloads.getAllValues().get(0), CardCostChangeNotifier.Notification.class);
+        assertEquals("US", updated.previousCountry());
+        assertEquals(1L, updated.id());
+        assertEquals("CA", updated.country());
+        assertEquals(6.0, updated.cost());
+        assertEquals(2L, updated.version());
+        CardCostChangeNotifier.Notification deleted = objectMapper.readValue((String) payloads.getAllValues().get(1), CardCostChangeNotifier.Notification.class);
+        assertEquals("GR", deleted.previousCountry());
+        assertNull(deleted.country());
+    }
+
+    @Test
+    void changesOfOtherInstancesAreApplied() {
+        cardCostChangeNotifier.handle("{\"origin\":\"other\",\"previousCountry\":\"US\",\"id\":1,\"country\":\"CA\",\"cost\":6.0,\"version\":2}");
+        cardCostChangeNotifier.handle("{\"origin\":\"other\",\"previousCountry\":\"GR\"}");
+
+        ArgumentCaptor<CardCostChangedEvent> events = ArgumentCaptor.forClass(CardCostChangedEvent.class);
+        verify(cardCostLookupTable, times(2)).onCardCostChanged(events.capture());
+        assertEquals(CardCostChangedEvent.updated("US", new CardCost(1L, "CA", 6.0, 2L)), events.getAllValues().get(0));
+        assertEquals(CardCostChangedEvent.deleted("GR"), events.getAllValues().get(1));
+    }
+
+    @Test
+    void ownChangesAndUnreadableNotificationsAreSkipped() {
+        String origin = (String) ReflectionTestUtils.getField(cardCostChangeNotifier, "origin");
+
+        cardCostChangeNotifier.handle("{\"origin\":\"" + origin + "\",\"previousCountry\":\"GR\"}");
+        cardCostChangeNotifier.handle("not json");
+
+        verifyNoInteractions(cardCostLookupTable);
+    }
+}
@@ -0,0 +1,39 @@
+package org.travel.cardcostapi.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.exceptions.InvalidCardNumberException;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.utils.CardNumberValidator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberRejectionsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CardNumberRejections cardNumberRejections = new CardNumberRejections(meterRegistry);
+
+    @Test
+    void countersAreRegisteredPerReason() {
+        for (CardNumberValidator.Rejection rejection : CardNumberValidator.Rejection.values()) {
+            assertNotNull(meterRegistry.find(CardNumberRejections.METRIC_NAME).tag("reason", rejection.getTag()).counter());
+        }
+    }
+
+    @Test
+    void countsRejectionsByReason() {
+        assertThrows(InvalidCardNumberException.class, () -> cardNumberRejections.validate(request("abcdefghij")));
+        assertThrows(InvalidCardNumberException.class, () -> cardNumberRejections.validate(request("4111111111111112")));
+        assertThrows(InvalidCardNumberException.class, () -> cardNumberRejections.validate(request("4111111111111113")));
+        cardNumberRejections.validate(request("4111111111111111"));
+
+        assertEquals(1, cardNumberRejections.count(CardNumberValidator.Rejection.NON_DIGIT));
+        assertEquals(2, meterRegistry.get(CardNumberRejections.METRIC_NAME).tag("reason", "luhn").counter().count());
+        assertEquals(0, cardNumberRejections.count(CardNumberValidator.Rejection.LENGTH));
+    }
+
+    private static PaymentCardCostRequest request(String cardNumber) {
+        PaymentCardCostRequest request = new PaymentCardCostRequest();
+        request.setCardNumber(cardNumber);
+        return request;
+    }
+}
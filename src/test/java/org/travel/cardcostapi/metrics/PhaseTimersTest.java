@@ -0,0 +1,40 @@
+package org.travel.cardcostapi.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseTimersTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PhaseTimers phaseTimers = new PhaseTimers(meterRegistry);
+
+    @Test
+    void timersAreRegisteredPerPhase() {
+        for (PhaseTimers.Phase phase : PhaseTimers.Phase.values()) {
+            assertNotNull(meterRegistry.find(PhaseTimers.METRIC_NAME).tag("phase", phase.getTag()).timer());
+        }
+    }
+
+    @Test
+    void recordsSupplierAndDuration() {
+        assertEquals("US", phaseTimers.record(PhaseTimers.Phase.BIN_LOOKUP, () -> "US"));
+        phaseTimers.record(PhaseTimers.Phase.BINLIST_CALL, TimeUnit.MICROSECONDS.toNanos(1500));
+
+        assertEquals(1, phaseTimers.timer(PhaseTimers.Phase.BIN_LOOKUP).count());
+        Timer binlistCall = meterRegistry.get(PhaseTimers.METRIC_NAME).tag("phase", "binlist_call").timer();
+        assertEquals(1.5, binlistCall.totalTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void recordsFailedRunnable() {
+        assertThrows(IllegalStateException.class, () -> phaseTimers.record(PhaseTimers.Phase.VALIDATION, () -> {
+            throw new IllegalStateException("invalid");
+        }));
+
+        assertEquals(1, phaseTimers.timer(PhaseTimers.Phase.VALIDATION).count());
+    }
+}
@@ -0,0 +1,59 @@
+package org.travel.cardcostapi.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.travel.cardcostapi.models.BinInfo;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class BinInfoRepositoryTest {
+    @Autowired
+    private BinInfoRepository binInfoRepository;
+
+    @Test
+    void saveAllInsertsAndUpdatesByBin() {
+        Instant fetchedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        binInfoRepository.saveAll(List.of(
+                new BinInfo("411111", "US", "visa", "credit", fetchedAt),
+                new BinInfo("012345", "GR", null, null, fetchedAt)));
+        binInfoRepository.saveAndFlush(new BinInfo("411111", "DK", "visa", "debit", fetchedAt.plusSeconds(60)));
+
+        BinInfo updated = binInfoRepository.findById("411111").orElseThrow();
+        assertEquals("DK", updated.getCountry());
+        assertEquals("debit", updated.getType());
+        assertEquals(fetchedAt.plusSeconds(60), updated.getFetchedAt());
+        assertEquals("GR", binInfoRepository.findById("012345").orElseThrow().getCountry());
+        assertEquals(2, binInfoRepository.count());
+    }
+
+    @Test
+    void upsertAllInsertsAndKeepsTheNewerResult() {
+        Instant fetchedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        binInfoRepository.upsertAll(List.of(
+                new BinInfo("411111", "US", "visa", "credit", fetchedAt),
+                new BinInfo("422222", "GR", null, null, fetchedAt)));
+        binInfoRepository.upsertAll(List.of(
+                new BinInfo("411111", "DK", "visa", "debit", fetchedAt.plusSeconds(60)),
+                new BinInfo("422222", "FR", "visa", "debit", fetchedAt.minusSeconds(60)),
+                new BinInfo("433333", "IT", "mastercard", "credit", fetchedAt)));
+
+        BinInfo updated = binInfoRepository.findById("411111").orElseThrow();
+        assertEquals("DK", updated.getCountry());
+        assertEquals("debit", updated.getType());
+        assertEquals(fetchedAt.plusSeconds(60), updated.getFetchedAt());
+        BinInfo kept = binInfoRepository.findById("422222").orElseThrow();
+        assertEquals("GR", kept.getCountry());
+        assertNull(kept.getScheme());
+        assertEquals(fetchedAt, kept.getFetchedAt());
+        assertEquals("IT", binInfoRepository.findById("433333").orElseThrow().getCountry());
+        assertEquals(3, binInfoRepository.count());
+    }
+}
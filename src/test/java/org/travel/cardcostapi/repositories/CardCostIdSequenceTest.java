@@ -0,0 +1,66 @@
+package org.travel.cardcostapi.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardCostIdSequenceTest {
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @InjectMocks
+    private CardCostIdSequence cardCostIdSequence;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    void advancesSequenceOnPostgres() throws Exception {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(jdbcTemplate.queryForObject(CardCostIdSequence.ADVANCE_SQL, Long.class)).thenReturn(150L);
+
+        cardCostIdSequence.start();
+
+        assertTrue(cardCostIdSequence.isRunning());
+        verify(jdbcTemplate).queryForObject(CardCostIdSequence.ADVANCE_SQL, Long.class);
+        verify(connection).close();
+    }
+
+    @Test
+    void skippedWithoutPostgres() throws Exception {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        cardCostIdSequence.start();
+
+        assertTrue(cardCostIdSequence.isRunning());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void failsStartupWithoutDatabase() throws Exception {
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        assertThrows(IllegalStateException.class, cardCostIdSequence::start);
+        assertFalse(cardCostIdSequence.isRunning());
+    }
+}
@@ -7,12 +7,20 @@ import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
 import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
+import org.travel.cardcostapi.services.CardCostService;
+import org.travel.cardcostapi.utils.ETags;
 
 import javax.swing.text.html.Option;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -106,4 +114,72 @@ class CardCostRepositoryTest {
         Optional<CardCost> result = cardCostRepository.findByCountry("GR");
         assertFalse(result.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByIdGreaterThanPagesById() {
+        List<CardCost> all = cardCostRepository.findAll();
+        long firstId = all.stream().mapToLong(CardCost::getId).min().orElseThrow();
+
+        List<CardCost> firstPage = cardCostRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(2));
+        List<CardCost> secondPage = cardCostRepository.findByIdGreaterThanOrderByIdAsc(firstPage.get(1).getId(), Limit.of(2));
+
+        assertEquals(List.of("US", "GR"), firstPage.stream().map(CardCost::getCountry).toList());
+        assertEquals(firstId, firstPage.get(0).getId());
+        assertEquals(List.of("FR"), secondPage.stream().map(CardCost::getCountry).toList());
+    }
+
+    @Test
+    void streamAllOrderedById() {
+        try (Stream<CardCost> cardCosts = cardCostRepository.streamAllByOrderByIdAsc()) {
+            assertEquals(List.of("US", "GR", "FR"), cardCosts.map(CardCost::getCountry).toList());
+        }
+    }
+
+    @Test
+    void findByCountryInReturnsExistingCountries() {
+        List<CardCost> result = cardCostRepository.findByCountryIn(List.of("US", "FR", "IN"));
+
+        assertEquals(List.of("FR", "US"), result.stream().map(CardCost::getCountry).sorted().toList());
+    }
+
+    @Test
+    void idsComeFromSequence() {
+        List<Long> ids = cardCostRepository.findAll().stream().map(CardCost::getId).sorted().toList();
+
+        assertEquals(3, ids.stream().distinct().count());
+        assertTrue(ids.stream().allMatch(id -> id > 0));
+    }
+
+    @Test
+    void duplicateCountryViolatesUniqueConstraint() {
+        DataIntegrityViolationException exception = assertThrows(DataIntegrityViolationException.class,
+                () -> cardCostRepository.saveAndFlush(new CardCost("US", 7.0)));
+        assertTrue(CardCostService.isCountryConflict(exception));
+    }
+
+    @Test
+    void findAllOnPrimaryRunsInReadWriteTransaction() throws NoSuchMethodException {
+        TransactionAttribute attribute = new AnnotationTransactionAttributeSource()
+                .getTransactionAttribute(CardCostRepository.class.getMethod("findAllOnPrimary"), CardCostRepository.class);
+
+        assertNotNull(attribute);
+        assertFalse(attribute.isReadOnly());
+        assertEquals(3, cardCostRepository.findAllOnPrimary().size());
+    }
+
+    @Test
+    void findAllVersionsMatchesTheCardCosts() {
+        List<CardCostVersion> versions = cardCostRepository.findAllVersions();
+
+        assertEquals(3, versions.size());
+        assertEquals(ETags.ofCardCosts(cardCostRepository.findAll()), ETags.ofVersions(versions));
+    }
+
+    @Test
+    void readByIdReturnsTheCardCost() {
+        CardCost us = cardCostRepository.findByCountry("US").orElseThrow();
+
+        assertEquals(us, cardCostRepository.readById(us.getId()).orElseThrow());
+        assertTrue(cardCostRepository.readById(-1L).isEmpty());
+    }
+}
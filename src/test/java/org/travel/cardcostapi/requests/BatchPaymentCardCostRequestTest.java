@@ -0,0 +1,38 @@
+package org.travel.cardcostapi.requests;
+
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPaymentCardCostRequestTest {
+
+    @Test
+    void batchPaymentCardCostValidate1() {
+        BatchPaymentCardCostRequest request = new BatchPaymentCardCostRequest();
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> {
+            request.validate();
+        });
+
+        assertEquals("CardNumbers cannot be null or empty", exception.getMessage());
+    }
+
+    @Test
+    void batchPaymentCardCostValidate2() {
+        BatchPaymentCardCostRequest request = new BatchPaymentCardCostRequest();
+        request.setCardNumbers(Collections.nCopies(BatchPaymentCardCostRequest.MAX_CARD_NUMBERS + 1, "4111111111111111"));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> {
+            request.validate();
+        });
+
+        assertEquals("CardNumbers cannot contain more than 1000 card numbers", exception.getMessage());
+
+        request.setCardNumbers(List.of("4111111111111111"));
+        assertDoesNotThrow(request::validate);
+    }
+}
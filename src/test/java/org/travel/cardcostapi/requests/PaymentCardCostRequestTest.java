@@ -40,4 +40,20 @@ class PaymentCardCostRequestTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void paymentCardCostValidateDigitsAndChecksum() {
+        PaymentCardCostRequest request = new PaymentCardCostRequest();
+        request.setCardNumber("abcdefghij");
+
+        BadRequestException exception = assertThrows(BadRequestException.class, request::validate);
+        assertEquals("CardNumber must contain digits only", exception.getMessage());
+
+        request.setCardNumber("1234567890123456");
+
+        exception = assertThrows(BadRequestException.class, request::validate);
+        assertEquals("CardNumber checksum is invalid", exception.getMessage());
+
+        request.setCardNumber("4111111111111111");
+        assertDoesNotThrow(request::validate);
+    }
+}
@@ -0,0 +1,110 @@
+package org.travel.cardcostapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.metrics.CardNumberRejections;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.requests.PaymentCardCostRequest;
+import org.travel.cardcostapi.responses.BatchPaymentCardCostResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BatchPaymentCardCostServiceTest {
+    @Mock
+    private CardCostService cardCostService;
+
+    @Mock
+    private BinRangeDatabase binRangeDatabase;
+
+    @Spy
+    private CardNumberRejections cardNumberRejections = new CardNumberRejections(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private BatchPaymentCardCostService batchPaymentCardCostService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(batchPaymentCardCostService, "batchLookupExecutor", new SimpleAsyncTaskExecutor());
+    }
+
+    @Test
+    void getPaymentCardCostsDeduplicatesBins() {
+        when(cardCostService.getPaymentCardCost(any(PaymentCardCostRequest.class), eq(RateLimiter.Priority.BATCH))).thenReturn(new CardCost(1L, "US", 5.0, 1L));
+
+        List<BatchPaymentCardCostResponse.Item> results = batchPaymentCardCostService.getPaymentCardCosts(
+                List.of("4111111111111111", "4111112222222227", "4111113333333333"));
+
+        assertEquals(3, results.size());
+        results.forEach(item -> {
+            assertEquals(200, item.getStatus());
+            assertEquals("US", item.getCountry());
+            assertEquals(5.0, item.getCost());
+        });
+        assertEquals("4111**********27", results.get(1).getCardNumber());
+        verify(cardCostService, times(1)).getPaymentCardCost(any(PaymentCardCostRequest.class), eq(RateLimiter.Priority.BATCH));
+    }
+
+    @Test
+    void getPaymentCardCostsDeduplicatesByBinRangePrefix() {
+        when(binRangeDatabase.getPrefixLength()).thenReturn(8);
+        when(cardCostService.getPaymentCardCost(argThat(request -> request != null && request.getCardNumber().startsWith("41111111")), eq(RateLimiter.Priority.BATCH)))
+                .thenReturn(new CardCost(1L, "US", 5.0, 1L));
+        when(cardCostService.getPaymentCardCost(argThat(request -> request != null && request.getCardNumber().startsWith("41111122")), eq(RateLimiter.Priority.BATCH)))
+                .thenReturn(new CardCost(2L, "GR", 15.0, 1L));
+
+        List<BatchPaymentCardCostResponse.Item> results = batchPaymentCardCostService.getPaymentCardCosts(
+                List.of("4111111111111111", "4111112222222227"));
+
+        assertEquals("US", results.get(0).getCountry());
+        assertEquals("GR", results.get(1).getCountry());
+        verify(cardCostService, times(2)).getPaymentCardCost(any(PaymentCardCostRequest.class), eq(RateLimiter.Priority.BATCH));
+    }
+
+    @Test
+    void getPaymentCardCostsKeepsOrderAndItemErrors() {
+        when(cardCostService.getPaymentCardCost(argThat(request -> request != null && request.getCardNumber().startsWith("411111")), eq(RateLimiter.Priority.BATCH)))
+                .thenReturn(new CardCost(1L, "US", 5.0, 1L));
+        when(cardCostService.getPaymentCardCost(argThat(request -> request != null && request.getCardNumber().startsWith("550000")), eq(RateLimiter.Priority.BATCH)))
+                .thenThrow(new ExternalApiException("Failed to connect to external API. Please try again later."));
+
+        List<BatchPaymentCardCostResponse.Item> results = batchPaymentCardCostService.getPaymentCardCosts(
+                List.of("5500000000000004", "41111", "4111111111111111"));
+
+        assertEquals(502, results.get(0).getStatus());
+        assertEquals("Failed to connect to external API. Please try again later.", results.get(0).getError());
+        assertNull(results.get(0).getCost());
+
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals("CardNumber must be greater than 8 and less than 19 digits", results.get(1).getError());
+        assertEquals("*****", results.get(1).getCardNumber());
+
+        assertEquals(200, results.get(2).getStatus());
+        assertEquals("US", results.get(2).getCountry());
+    }
+
+    @Test
+    void invalidCardNumbersAreRejectedWithoutLookup() {
+        List<BatchPaymentCardCostResponse.Item> results = batchPaymentCardCostService.getPaymentCardCosts(
+                List.of("4111111111111112", "4111a11111111111"));
+
+        assertEquals(400, results.get(0).getStatus());
+        assertEquals("CardNumber checksum is invalid", results.get(0).getError());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals("CardNumber must contain digits only", results.get(1).getError());
+        verifyNoInteractions(cardCostService);
+    }
+}
@@ -0,0 +1,151 @@
+package org.travel.cardcostapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.travel.cardcostapi.configs.BinCacheProperties;
+import org.travel.cardcostapi.configs.BinInfoProperties;
+import org.travel.cardcostapi.models.BinInfo;
+import org.travel.cardcostapi.repositories.BinInfoRepository;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BinInfoTableTest {
+    private static final Instant NOW = Instant.parse("2024-10-01T12:00:00Z");
+
+    @Mock
+    private BinInfoRepository binInfoRepository;
+
+    @Spy
+    private BinInfoProperties binInfoProperties = new BinInfoProperties();
+
+    @Spy
+    private BinCacheProperties binCacheProperties = new BinCacheProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private BinInfoTable binInfoTable;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        binInfoProperties.setWriteBehindDelay(Duration.ofHours(1));
+        binInfoProperties.setBatchSize(2);
+        binInfoProperties.setMaxPending(3);
+        binCacheProperties.setTtl(Duration.ofHours(24));
+        ReflectionTestUtils.setField(binInfoTable, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        binInfoTable.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        binInfoTable.close();
+    }
+
+    @Test
+    void findReturnsResultsWithinTtl() {
+        when(binInfoRepository.findById("411111")).thenReturn(Optional.of(new BinInfo("411111", "US", "visa", "debit", NOW.minus(Duration.ofHours(23)))));
+        when(binInfoRepository.findById("422222")).thenReturn(Optional.of(new BinInfo("422222", "GR", "visa", "debit", NOW.minus(Duration.ofHours(25)))));
+
+        assertEquals("US", binInfoTable.find("411111").orElseThrow().getCountry());
+        assertTrue(binInfoTable.find("422222").isEmpty());
+        assertTrue(binInfoTable.find("433333").isEmpty());
+    }
+
+    @Test
+    void findFailureIsAMiss() {
+        when(binInfoRepository.findById(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertTrue(binInfoTable.find("411111").isEmpty());
+    }
+
+    @Test
+    void savedResultsAreWrittenBehindInBatches() {
+        List<List<BinInfo>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(List.copyOf(invocation.<List<BinInfo>>getArgument(0))))
+                .when(binInfoRepository).upsertAll(anyList());
+
+        binInfoTable.save("411111", cardInfo("US"));
+        binInfoTable.save("411111", cardInfo("DK"));
+        binInfoTable.save("422222", cardInfo("GR"));
+        binInfoTable.save("433333", cardInfo("FR"));
+        verifyNoInteractions(binInfoRepository);
+        assertEquals(3, binInfoTable.getPendingCount());
+
+        binInfoTable.flush();
+
+        assertEquals(0, binInfoTable.getPendingCount());
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        BinInfo dk = batches.stream().flatMap(List::stream).filter(binInfo -> binInfo.getBin().equals("411111")).findFirst().orElseThrow();
+        assertEquals("DK", dk.getCountry());
+        assertEquals("visa", dk.getScheme());
+        assertEquals(NOW, dk.getFetchedAt());
+        assertEquals(3, meterRegistry.get("bin.info.written").functionCounter().count());
+    }
+
+    @Test
+    void resultsBeyondMaxPendingAreDropped() {
+        for (int i = 0; i < 5; i++) {
+            binInfoTable.save(String.valueOf(400000 + i), cardInfo("US"));
+        }
+
+        assertEquals(3, binInfoTable.getPendingCount());
+        assertEquals(2, meterRegistry.get("bin.info.dropped").functionCounter().count());
+    }
+
+    @Test
+    void failedBatchIsDropped() {
+        doThrow(new DataAccessResourceFailureException("connection refused")).when(binInfoRepository).upsertAll(anyList());
+
+        binInfoTable.save("411111", cardInfo("US"));
+        binInfoTable.save("422222", cardInfo("GR"));
+        binInfoTable.flush();
+
+        verify(binInfoRepository, never()).save(any(BinInfo.class));
+        assertEquals(0, binInfoTable.getPendingCount());
+        assertEquals(2, meterRegistry.get("bin.info.dropped").functionCounter().count());
+    }
+
+    @Test
+    void disabledTableIsNeitherReadNorWritten() {
+        binInfoTable.close();
+        BinInfoTable disabled = new BinInfoTable();
+        binInfoProperties.setEnabled(false);
+        ReflectionTestUtils.setField(disabled, "binInfoProperties", binInfoProperties);
+        disabled.init();
+
+        assertTrue(disabled.find("411111").isEmpty());
+        disabled.save("411111", cardInfo("US"));
+        assertEquals(0, disabled.getPendingCount());
+    }
+
+    private static CardInfoResponse cardInfo(String alpha2) {
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        country.setAlpha2(alpha2);
+        CardInfoResponse cardInfoResponse = new CardInfoResponse();
+        cardInfoResponse.setCountry(country);
+        cardInfoResponse.setScheme("visa");
+        cardInfoResponse.setType("debit");
+        return cardInfoResponse;
+    }
+}
@@ -0,0 +1,302 @@
+package org.travel.cardcostapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.travel.cardcostapi.caches.BinCountryCache;
+import org.travel.cardcostapi.caches.BinCountryStore;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.clients.BinLookupProvider;
+import org.travel.cardcostapi.clients.CircuitBreaker;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.configs.CircuitBreakerProperties;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.ServiceUnavailableException;
+import org.travel.cardcostapi.metrics.PhaseTimers;
+import org.travel.cardcostapi.models.BinInfo;
+import org.travel.cardcostapi.responses.CardInfoResponse;
+import org.travel.cardcostapi.utils.SingleFlight;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BinLookupServiceTest {
+    private static final String CARD_NUMBER = "1234567890123456";
+    private static final String BIN = "123456";
+
+    @Mock
+    private BinLookupProvider binLookupProvider;
+
+    @Mock
+    private BinCountryCache binCountryCache;
+
+    @Mock
+    private BinCountryStore binCountryStore;
+
+    @Mock
+    private BinRangeDatabase binRangeDatabase;
+
+    @Mock
+    private BinInfoTable binInfoTable;
+
+    @Mock
+    private CircuitBreaker binlistCircuitBreaker;
+
+    @Spy
+    private CircuitBreakerProperties circuitBreakerProperties = new CircuitBreakerProperties();
+
+    @Spy
+    private SingleFlight<String, CardInfoResponse.Country> binLookups = new SingleFlight<>();
+
+    @Spy
+    private PhaseTimers phaseTimers = new PhaseTimers(new SimpleMeterRegistry());
+
+    @InjectMocks
+    private BinLookupService binLookupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(binlistCircuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(binCountryCache.getStale(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void findCountryCodeFromExternalApi() {
+        CardInfoResponse.Country country = country("US");
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.completedFuture(cardInfo(country)));
+
+        assertEquals("US", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verify(binLookupProvider, times(1)).lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any());
+        verify(binCountryCache, times(1)).put(BIN, country);
+        verify(binCountryStore, times(1)).append(BIN, "US");
+        verify(binInfoTable, times(1)).save(eq(BIN), any(CardInfoResponse.class));
+        verify(binlistCircuitBreaker, times(1)).onSuccess(anyLong());
+    }
+
+    @Test
+    void findCountryCodeSharedByAnotherInstance() {
+        when(binInfoTable.find(BIN)).thenReturn(Optional.of(new BinInfo(BIN, "GR", "visa", "debit", Instant.now().minus(Duration.ofHours(2)))));
+
+        assertEquals("GR", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verify(binLookupProvider, never()).lookup(anyString(), any(), any());
+        verify(binCountryCache, times(1)).restore(eq(BIN), argThat(country -> country.getAlpha2().equals("GR")),
+                argThat(age -> age.compareTo(Duration.ofHours(2)) >= 0 && age.compareTo(Duration.ofHours(3)) < 0));
+        verify(binInfoTable, never()).save(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeCachedBin() {
+        when(binCountryCache.get(BIN)).thenReturn(Optional.of(country("US")));
+
+        assertEquals("US", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verify(binLookupProvider, never()).lookup(anyString(), any(), any());
+        verify(binCountryCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeOfflineBinRange() {
+        when(binRangeDatabase.findCountry(CARD_NUMBER)).thenReturn("GR");
+
+        assertEquals("GR", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verifyNoInteractions(binLookupProvider, binCountryCache);
+    }
+
+    @Test
+    void findCountryCodeInvalidResponse() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        assertEquals("Invalid response from external API.", exception.getMessage());
+        verify(binLookupProvider, times(1)).lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any());
+    }
+
+    @Test
+    void findCountryCodeEmptyCountryCode() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.completedFuture(cardInfo(country(null))));
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        assertEquals("Country code is null or empty. Cause card_number is invalid.", exception.getMessage());
+        verify(binCountryCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeExternalApiFailureIsRecorded() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later.")));
+
+        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        assertEquals("Failed to connect to external API. Please try again later.", exception.getMessage());
+        verify(binlistCircuitBreaker, times(1)).onError(anyLong());
+    }
+
+    @Test
+    void findCountryCodeRejectedBinIsNotAFailure() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ExternalApiException("External API returned an error: 404 NOT_FOUND", 404)));
+
+        assertThrows(ExternalApiException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verify(binlistCircuitBreaker, never()).onError(anyLong());
+        verify(binlistCircuitBreaker, times(1)).onSuccess(anyLong());
+    }
+
+    @Test
+    void findCountryCodeOpenCircuitFailsFast() {
+        when(binlistCircuitBreaker.tryAcquirePermission()).thenReturn(false);
+        when(binlistCircuitBreaker.getRemainingOpenDuration()).thenReturn(Duration.ofSeconds(12));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        assertEquals(Duration.ofSeconds(12), exception.getRetryAfter());
+        verifyNoInteractions(binLookupProvider);
+    }
+
+    @Test
+    void findCountryCodeOpenCircuitServesStaleCountry() {
+        when(binlistCircuitBreaker.tryAcquirePermission()).thenReturn(false);
+        when(binCountryCache.getStale(BIN)).thenReturn(Optional.of(country("US")));
+
+        assertEquals("US", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verifyNoInteractions(binLookupProvider);
+        verify(binCountryCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeExternalApiFailureServesOthers() {
+        circuitBreakerProperties.setServeOthers(true);
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ExternalApiException("External API returned an error: 503 SERVICE_UNAVAILABLE", 503)));
+
+        assertEquals(CardCostLookupTable.OTHERS, binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        verify(binCountryCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeStaleCountryIsPreferredOverOthers() {
+        circuitBreakerProperties.setServeOthers(true);
+        when(binlistCircuitBreaker.tryAcquirePermission()).thenReturn(false);
+        when(binCountryCache.getStale(BIN)).thenReturn(Optional.of(country("GR")));
+
+        assertEquals("GR", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+    }
+
+    @Test
+    void findCountryCodeStaleCountryDisabled() {
+        circuitBreakerProperties.setServeStale(false);
+        when(binlistCircuitBreaker.tryAcquirePermission()).thenReturn(false);
+        when(binlistCircuitBreaker.getRemainingOpenDuration()).thenReturn(Duration.ofSeconds(1));
+        when(binCountryCache.getStale(BIN)).thenReturn(Optional.of(country("GR")));
+
+        assertThrows(ServiceUnavailableException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+    }
+
+    @Test
+    void findCountryCodePassesCallerPriorityToProvider() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.BATCH), any())).thenReturn(CompletableFuture.completedFuture(cardInfo(country("US"))));
+
+        assertEquals("US", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.BATCH));
+        verify(binLookupProvider, times(1)).lookup(eq(BIN), eq(RateLimiter.Priority.BATCH), any());
+    }
+
+    @Test
+    void findCountryCodeInteractiveDoesNotWaitBehindBatchLookup() throws Exception {
+        CompletableFuture<CardInfoResponse> batchResponse = new CompletableFuture<>();
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.BATCH), any())).thenReturn(batchResponse);
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.completedFuture(cardInfo(country("US"))));
+        CompletableFuture<String> batch = CompletableFuture.supplyAsync(() -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.BATCH));
+        while (binLookups.inFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertEquals("US", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+        assertFalse(batch.isDone());
+
+        batchResponse.complete(cardInfo(country("US")));
+        assertEquals("US", batch.get(5, TimeUnit.SECONDS));
+        assertEquals(0, binLookups.coalescedCount());
+    }
+
+    @Test
+    void findCountryCodeRejectedByProviderFailsFast() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.BATCH), any())).thenReturn(CompletableFuture.failedFuture(
+                new ServiceUnavailableException("Rate limit of external API reached. Please try again later.", Duration.ofSeconds(6))));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.BATCH));
+
+        assertEquals(Duration.ofSeconds(6), exception.getRetryAfter());
+        verify(binlistCircuitBreaker, times(1)).releasePermission();
+        verify(binlistCircuitBreaker, never()).onError(anyLong());
+        verify(binCountryCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void findCountryCodeRejectedByProviderServesStaleCountry() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.failedFuture(
+                new ServiceUnavailableException("Too many concurrent external API lookups. Please try again later.", Duration.ofSeconds(1))));
+        when(binCountryCache.getStale(BIN)).thenReturn(Optional.of(country("GR")));
+
+        assertEquals("GR", binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+    }
+
+    @Test
+    void findCountryCodeTooManyRequestsIsNotAFailure() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenReturn(CompletableFuture.failedFuture(
+                new ExternalApiException("External API returned an error: 429 TOO_MANY_REQUESTS", 429, Duration.ofSeconds(40))));
+
+        assertThrows(ExternalApiException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        verify(binlistCircuitBreaker, never()).onError(anyLong());
+        verify(binlistCircuitBreaker, times(1)).releasePermission();
+    }
+
+    @Test
+    void findCountryCodeUnexpectedFailureEndsTheCall() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenThrow(new IllegalStateException("unexpected"));
+
+        assertThrows(IllegalStateException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        verify(binlistCircuitBreaker, times(1)).onError(anyLong());
+    }
+
+    @Test
+    void findCountryCodeTimesTheCallFromItsSend() {
+        when(binLookupProvider.lookup(eq(BIN), eq(RateLimiter.Priority.INTERACTIVE), any())).thenAnswer(invocation -> {
+            //waiting for the quota
+            Thread.sleep(200);
+            invocation.getArgument(2, Runnable.class).run();
+            return CompletableFuture.failedFuture(new ExternalApiException("Failed to connect to external API. Please try again later."));
+        });
+
+        assertThrows(ExternalApiException.class, () -> binLookupService.findCountryCode(CARD_NUMBER, RateLimiter.Priority.INTERACTIVE));
+
+        verify(binlistCircuitBreaker, times(1)).onError(longThat(duration -> duration < Duration.ofMillis(200).toNanos()));
+    }
+
+    private static CardInfoResponse.Country country(String alpha2) {
+        CardInfoResponse.Country country = new CardInfoResponse.Country();
+        country.setAlpha2(alpha2);
+        return country;
+    }
+
+    private static CardInfoResponse cardInfo(CardInfoResponse.Country country) {
+        CardInfoResponse cardInfoResponse = new CardInfoResponse();
+        cardInfoResponse.setCountry(country);
+        return cardInfoResponse;
+    }
+}
@@ -0,0 +1,77 @@
+package org.travel.cardcostapi.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.travel.cardcostapi.utils.BinRangeCompiler;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinRangeDatabaseTest {
+    @TempDir
+    Path tempDir;
+
+    private BinRangeDatabase binRangeDatabase;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String csv = """
+                range_start,range_end,country
+                400000,400099,US
+                411111,411111,GR
+                # Mastercard
+                51,52,DK
+                """;
+        Path file = tempDir.resolve("bin-ranges.dat");
+        try (BufferedReader reader = new BufferedReader(new StringReader(csv));
+             OutputStream output = Files.newOutputStream(file)) {
+            BinRangeCompiler.compile(reader, output, 6);
+        }
+
+        binRangeDatabase = new BinRangeDatabase();
+        binRangeDatabase.load(file);
+    }
+
+    @Test
+    void findCountry() {
+        assertTrue(binRangeDatabase.isLoaded());
+        assertEquals(6, binRangeDatabase.getPrefixLength());
+        assertEquals("US", binRangeDatabase.findCountry("4000001234567890"));
+        assertEquals("US", binRangeDatabase.findCountry("4000991234567890"));
+        assertEquals("GR", binRangeDatabase.findCountry("4111111111111111"));
+        assertEquals("DK", binRangeDatabase.findCountry("5100001234567890"));
+        assertEquals("DK", binRangeDatabase.findCountry("5299991234567890"));
+    }
+
+    @Test
+    void findCountryUnknown() {
+        assertNull(binRangeDatabase.findCountry("4001001234567890"));
+        assertNull(binRangeDatabase.findCountry("3999991234567890"));
+        assertNull(binRangeDatabase.findCountry("9999991234567890"));
+        assertNull(binRangeDatabase.findCountry("41111"));
+        assertNull(binRangeDatabase.findCountry("41a1111111111111"));
+    }
+
+    @Test
+    void disabledWithoutFile() {
+        BinRangeDatabase disabled = new BinRangeDatabase();
+
+        assertFalse(disabled.isLoaded());
+        assertEquals(0, disabled.getPrefixLength());
+        assertNull(disabled.findCountry("4111111111111111"));
+    }
+
+    @Test
+    void rejectsInvalidFile() throws Exception {
+        Path file = tempDir.resolve("invalid.dat");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IllegalStateException.class, () -> binRangeDatabase.load(file));
+    }
+}
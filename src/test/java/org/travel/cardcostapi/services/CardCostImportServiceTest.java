@@ -0,0 +1,214 @@
+package org.travel.cardcostapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
+import org.travel.cardcostapi.exceptions.BadRequestException;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.repositories.CardCostRepository;
+import org.travel.cardcostapi.responses.CardCostImportResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CardCostImportServiceTest {
+    @Mock
+    private CardCostRepository cardCostRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private CardCostImportService cardCostImportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(cardCostRepository.save(any(CardCost.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void importCsvCreatesUpdatesAndSkipsUnchanged() throws Exception {
+        CardCost gr = new CardCost(2L, "GR", 15.0, 1L);
+        CardCost fr = new CardCost(3L, "FR", 10.0, 1L);
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of(gr, fr));
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(
+                reader("country,cost\nus,5\n\"GR\",20.5\n# comment\n\nFR,10\n"), CardCostImportService.Format.CSV);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(0, result.getRejected());
+        assertEquals(20.5, gr.getCost());
+        verify(cardCostRepository).save(argThat(cardCost -> cardCost.getCountry().equals("US") && cardCost.getCost() == 5.0));
+        verify(cardCostRepository).flush();
+        verify(entityManager).clear();
+        verify(eventPublisher, times(2)).publishEvent(any(CardCostChangedEvent.class));
+    }
+
+    @Test
+    void csvHeaderAfterCommentsAndBlankLinesIsSkipped() throws Exception {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(
+                reader("# card costs\n\ncountry,cost\nUS,5\n"), CardCostImportService.Format.CSV);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(0, result.getRejected());
+    }
+
+    @Test
+    void importNdjson() throws Exception {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(
+                reader("{\"country\":\"US\",\"cost\":5}\n{\"country\":\"gr\",\"cost\":15.5}\n"), CardCostImportService.Format.NDJSON);
+
+        assertEquals(2, result.getCreated());
+        verify(cardCostRepository).save(argThat(cardCost -> cardCost.getCountry().equals("GR") && cardCost.getCost() == 15.5));
+    }
+
+    @Test
+    void invalidLinesAreRejectedWithTheirLineNumber() throws Exception {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(
+                reader("US,5\nGR\nFR,-1\nIT,abc\nES,2\n"), CardCostImportService.Format.CSV);
+
+        assertEquals(2, result.getCreated());
+        assertEquals(3, result.getRejected());
+        assertEquals(List.of(2, 3, 4), result.getErrors().stream().map(CardCostImportResponse.LineError::getLine).toList());
+        assertEquals("Cost cannot be negative", result.getErrors().get(1).getError());
+    }
+
+    @Test
+    void invalidJsonIsRejected() throws Exception {
+        CardCostImportResponse result = cardCostImportService.importCardCosts(
+                reader("{\"country\":\"US\",\n"), CardCostImportService.Format.NDJSON);
+
+        assertEquals(1, result.getRejected());
+        assertEquals("Invalid JSON", result.getErrors().get(0).getError());
+        verify(cardCostRepository, never()).flush();
+    }
+
+    @Test
+    void repeatedCountryKeepsLastCost() throws Exception {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(reader("US,5\nUS,7\n"), CardCostImportService.Format.CSV);
+
+        assertEquals(1, result.getCreated());
+        verify(cardCostRepository).save(argThat(cardCost -> cardCost.getCost() == 7.0));
+    }
+
+    @Test
+    void largeBodyIsWrittenInChunks() throws Exception {
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenAnswer(invocation -> {
+            chunkSizes.add(invocation.<Collection<String>>getArgument(0).size());
+            return List.of();
+        });
+        String body = IntStream.range(0, 120)
+                .mapToObj(i -> "C" + i + "," + i)
+                .collect(Collectors.joining("\n"));
+
+        CardCostImportResponse result = cardCostImportService.importCardCosts(reader(body), CardCostImportService.Format.CSV);
+
+        assertEquals(List.of(50, 50, 20), chunkSizes);
+        assertEquals(120, result.getCreated());
+        verify(cardCostRepository, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void concurrentlyCreatedCountryFailsTheImport() {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_card_cost_country\"")).when(cardCostRepository).flush();
+
+        assertThrows(BadRequestException.class,
+                () -> cardCostImportService.importCardCosts(reader("US,5\n"), CardCostImportService.Format.CSV));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void otherViolationFailsTheImportAsIs() {
+        when(cardCostRepository.findByCountryIn(anyCollection())).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("null value in column \"cost\" violates not-null constraint")).when(cardCostRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> cardCostImportService.importCardCosts(reader("US,5\n"), CardCostImportService.Format.CSV));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    //runs the real transaction, outside of the test transaction of @DataJpaTest
+    @Nested
+    @DataJpaTest
+    @ActiveProfiles("test")
+    @Import({CardCostImportService.class, ObjectMapper.class})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    class InTransaction {
+        @Autowired
+        private CardCostImportService cardCostImportService;
+        @Autowired
+        private CardCostRepository cardCostRepository;
+
+        @Test
+        void readFailureAfterFlushedChunkRollsBackTheImport() {
+            cardCostRepository.deleteAll();
+            String body = IntStream.range(0, 60)
+                    .mapToObj(i -> "C" + i + "," + i)
+                    .collect(Collectors.joining("\n", "", "\n"));
+            BufferedReader disconnecting = new BufferedReader(new StringReader(body) {
+                @Override
+                public int read(char[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read == -1) {
+                        throw new IOException("client disconnected");
+                    }
+                    return read;
+                }
+            });
+
+            assertThrows(IOException.class, () -> cardCostImportService.importCardCosts(disconnecting, CardCostImportService.Format.CSV));
+
+            assertEquals(0, cardCostRepository.count());
+        }
+    }
+
+    private static BufferedReader reader(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+}
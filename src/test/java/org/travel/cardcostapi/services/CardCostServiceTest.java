@@ -1,5 +1,7 @@
 package org.travel.cardcostapi.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.hibernate.sql.Update;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,21 +9,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.travel.cardcostapi.caches.CardCostLookupTable;
+import org.travel.cardcostapi.clients.RateLimiter;
+import org.travel.cardcostapi.events.CardCostChangedEvent;
 import org.travel.cardcostapi.exceptions.BadRequestException;
 import org.travel.cardcostapi.exceptions.ExternalApiException;
+import org.travel.cardcostapi.exceptions.PreconditionFailedException;
 import org.travel.cardcostapi.exceptions.ResourceNotFoundException;
+import org.travel.cardcostapi.metrics.PhaseTimers;
 import org.travel.cardcostapi.models.CardCost;
 import org.travel.cardcostapi.repositories.CardCostRepository;
 import org.travel.cardcostapi.requests.CreateCardCostRequest;
 import org.travel.cardcostapi.requests.PaymentCardCostRequest;
 import org.travel.cardcostapi.requests.UpdateCardCostRequest;
-import org.travel.cardcostapi.responses.CardInfoResponse;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,7 +47,19 @@ class CardCostServiceTest {
     private CardCostRepository cardCostRepository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private BinLookupService binLookupService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CardCostLookupTable cardCostLookupTable;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PhaseTimers phaseTimers = new PhaseTimers(new SimpleMeterRegistry());
 
     @InjectMocks
     private CardCostService cardCostService;
@@ -54,13 +79,15 @@ class CardCostServiceTest {
         savedCardCost.setCountry("US");
         savedCardCost.setCost(5.0);
 
-        when(cardCostRepository.save(any(CardCost.class))).thenReturn(savedCardCost);
+        when(cardCostRepository.saveAndFlush(any(CardCost.class))).thenReturn(savedCardCost);
         CardCost result = cardCostService.createCardCost(request);
 
         assertNotNull(result);
         assertEquals("US", result.getCountry());
         assertEquals(5.0, result.getCost());
-        verify(cardCostRepository, times(1)).save(any(CardCost.class));
+        verify(cardCostRepository, times(1)).saveAndFlush(any(CardCost.class));
+        verify(cardCostRepository, never()).findByCountry(any());
+        verify(eventPublisher, times(1)).publishEvent(CardCostChangedEvent.created(savedCardCost));
     }
 
     @Test
@@ -69,16 +96,43 @@ class CardCostServiceTest {
         request.setCountry("US");
         request.setCost(5.0);
 
-        CardCost savedCardCost = new CardCost();
-        savedCardCost.setCountry("US");
-        savedCardCost.setCost(5.0);
-        Optional<CardCost> optionalCardCost = Optional.of(savedCardCost);
-
-        when(cardCostRepository.findByCountry(any())).thenReturn(optionalCardCost);
+        when(cardCostRepository.saveAndFlush(any(CardCost.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_card_cost_country\""));
 
-        assertThrows(BadRequestException.class, () -> {
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> {
             cardCostService.createCardCost(request);
         });
+        assertEquals("Country already exists", exception.getMessage());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateCardCostByIdToExistingCountry() {
+        UpdateCardCostRequest updateRequest = new UpdateCardCostRequest();
+        updateRequest.setCountry("US");
+        updateRequest.setCost(15.0);
+
+        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(new CardCost(1L, "UK", 10.0, 0L)));
+        when(cardCostRepository.saveAndFlush(any(CardCost.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException(
+                        "Unique index or primary key violation", new SQLException("duplicate"), "PUBLIC.UK_CARD_COST_COUNTRY_INDEX_4")));
+
+        assertThrows(BadRequestException.class, () -> cardCostService.updateCardCostById(1L, updateRequest));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void createCardCostOtherViolationIsNotReportedAsExistingCountry() {
+        CreateCardCostRequest request = new CreateCardCostRequest();
+        request.setCountry("US");
+        request.setCost(5.0);
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("NULL not allowed for column \"COST\"", new SQLException("null value"), null));
+
+        when(cardCostRepository.saveAndFlush(any(CardCost.class))).thenThrow(violation);
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> cardCostService.createCardCost(request)));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -105,17 +159,59 @@ class CardCostServiceTest {
         });
     }
 
+    @Test
+    void getCardCostPage() {
+        List<CardCost> cardCosts = List.of(new CardCost(3L, "US", 5.0), new CardCost(4L, "GR", 15.0));
+        when(cardCostRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(2))).thenReturn(cardCosts);
+
+        List<CardCost> result = cardCostService.getCardCostPage(2L, 2);
+
+        assertEquals(cardCosts, result);
+    }
+
+    @Test
+    void getCardCostPageInvalidLimit() {
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> cardCostService.getCardCostPage(0L, 1001));
+
+        assertEquals("limit must be between 1 and 1000", exception.getMessage());
+        verifyNoInteractions(cardCostRepository);
+    }
+
+    @Test
+    void getCardCostPageInvalidAfterId() {
+        assertThrows(BadRequestException.class, () -> cardCostService.getCardCostPage(-1L, 10));
+        verifyNoInteractions(cardCostRepository);
+    }
+
+    @Test
+    void streamAllCardCostDetachesConsumedRows() {
+        CardCost us = new CardCost(1L, "US", 5.0);
+        CardCost gr = new CardCost(2L, "GR", 15.0);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(cardCostRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(us, gr).onClose(() -> closed.set(true)));
+        List<CardCost> consumed = new ArrayList<>();
+
+        long count = cardCostService.streamAllCardCost(consumed::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(us, gr), consumed);
+        verify(entityManager, times(1)).detach(us);
+        verify(entityManager, times(1)).detach(gr);
+        assertTrue(closed.get());
+    }
+
     @Test
     void getCardCostByIdExists() {
         CardCost cardCost = new CardCost(1L, "US", 5.0);
-        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(cardCost));
+        when(cardCostRepository.readById(1L)).thenReturn(Optional.of(cardCost));
 
         CardCost result = cardCostService.getCardCostById(1L);
 
         assertNotNull(result);
         assertEquals("US", result.getCountry());
         assertEquals(5.0, result.getCost());
-        verify(cardCostRepository, times(1)).findById(1L);
+        verify(cardCostRepository, times(1)).readById(1L);
+        verify(cardCostRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -146,13 +242,14 @@ class CardCostServiceTest {
         existingCardCost.setCost(10.0);
 
         when(cardCostRepository.findById(cardCostId)).thenReturn(Optional.of(existingCardCost));
-        when(cardCostRepository.save(any(CardCost.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardCostRepository.saveAndFlush(any(CardCost.class))).thenAnswer(invocation -> invocation.getArgument(0));
         CardCost updatedCardCost = cardCostService.updateCardCostById(cardCostId, updateRequest);
 
         assertNotNull(updatedCardCost);
         assertEquals("US", updatedCardCost.getCountry());
         assertEquals(15.0, updatedCardCost.getCost());
-        verify(cardCostRepository, times(1)).save(existingCardCost);
+        verify(cardCostRepository, times(1)).saveAndFlush(existingCardCost);
+        verify(eventPublisher, times(1)).publishEvent(CardCostChangedEvent.updated("UK", updatedCardCost));
     }
 
     @Test
@@ -179,86 +276,97 @@ class CardCostServiceTest {
         cardCostService.deleteCardCostById(cardCostId);
 
         verify(cardCostRepository, times(1)).delete(existingCardCost);
+        verify(eventPublisher, times(1)).publishEvent(CardCostChangedEvent.deleted("US"));
     }
 
     @Test
-    void getPaymentCardCostValidResponse() {
-        PaymentCardCostRequest request = new PaymentCardCostRequest();
-        request.setCardNumber("1234567890123456");
+    void updateCardCostByIdIfMatch() {
+        UpdateCardCostRequest updateRequest = new UpdateCardCostRequest();
+        updateRequest.setCountry("US");
+        updateRequest.setCost(15.0);
 
-        CardInfoResponse cardInfoResponse = new CardInfoResponse();
-        CardInfoResponse.Country country = new CardInfoResponse.Country();
-        country.setAlpha2("US");
-        cardInfoResponse.setCountry(country);
+        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(new CardCost(1L, "US", 10.0, 3L)));
+        when(cardCostRepository.saveAndFlush(any(CardCost.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(restTemplate.getForObject(anyString(), eq(CardInfoResponse.class))).thenReturn(cardInfoResponse);
+        assertEquals(15.0, cardCostService.updateCardCostById(1L, updateRequest, "\"2\", \"3\"").getCost());
+        verify(cardCostRepository, times(1)).saveAndFlush(any(CardCost.class));
+    }
 
-        CardCost cardCost = new CardCost(1L, "US", 5.0, 1L);
-        cardCostService.setRestTemplate(restTemplate);
-        when(cardCostRepository.findByCountry("US")).thenReturn(Optional.of(cardCost));
+    @Test
+    void updateCardCostByIdIfMatchChanged() {
+        UpdateCardCostRequest updateRequest = new UpdateCardCostRequest();
+        updateRequest.setCountry("US");
+        updateRequest.setCost(15.0);
 
-        CardCost result = cardCostService.getPaymentCardCost(request);
+        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(new CardCost(1L, "US", 10.0, 3L)));
 
-        assertNotNull(result);
-        assertEquals("US", result.getCountry());
-        assertEquals(5.0, result.getCost());
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(CardInfoResponse.class));
-        verify(cardCostRepository, times(1)).findByCountry("US");
+        PreconditionFailedException exception = assertThrows(PreconditionFailedException.class,
+                () -> cardCostService.updateCardCostById(1L, updateRequest, "\"2\""));
+        assertEquals("Card Cost with Id: 1 was changed, current ETag: \"3\"", exception.getMessage());
+        assertThrows(PreconditionFailedException.class, () -> cardCostService.updateCardCostById(1L, updateRequest, "W/\"3\""));
+        verify(cardCostRepository, never()).saveAndFlush(any(CardCost.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
-    void testGetPaymentCardCostInvalidResponse() {
-        PaymentCardCostRequest request = new PaymentCardCostRequest();
-        request.setCardNumber("1234567890123456");
+    void updateCardCostByIdIfMatchChangedConcurrently() {
+        UpdateCardCostRequest updateRequest = new UpdateCardCostRequest();
+        updateRequest.setCountry("US");
+        updateRequest.setCost(15.0);
 
-        when(restTemplate.getForObject(anyString(), eq(CardInfoResponse.class))).thenReturn(null);
+        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(new CardCost(1L, "US", 10.0, 3L)));
+        when(cardCostRepository.saveAndFlush(any(CardCost.class))).thenThrow(new ObjectOptimisticLockingFailureException(CardCost.class, 1L));
 
+        assertThrows(PreconditionFailedException.class, () -> cardCostService.updateCardCostById(1L, updateRequest, "\"3\""));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> cardCostService.updateCardCostById(1L, updateRequest));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
 
-        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> {
-            cardCostService.getPaymentCardCost(request);
-        });
+    @Test
+    void deleteCardCostByIdIfMatch() {
+        when(cardCostRepository.findById(1L)).thenReturn(Optional.of(new CardCost(1L, "US", 10.0, 3L)));
 
-        assertEquals("Invalid response from external API.", exception.getMessage());
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(CardInfoResponse.class));
-        verify(cardCostRepository, never()).findByCountry(anyString());
+        assertThrows(PreconditionFailedException.class, () -> cardCostService.deleteCardCostById(1L, "\"2\""));
+        verify(cardCostRepository, never()).delete(any(CardCost.class));
+
+        cardCostService.deleteCardCostById(1L, "*");
+        verify(cardCostRepository, times(1)).delete(any(CardCost.class));
+        verify(cardCostRepository, times(1)).flush();
+        verify(eventPublisher, times(1)).publishEvent(CardCostChangedEvent.deleted("US"));
     }
 
     @Test
-    void getPaymentCardCostExternalApiException() {
+    void getPaymentCardCostValidResponse() {
         PaymentCardCostRequest request = new PaymentCardCostRequest();
         request.setCardNumber("1234567890123456");
 
-        when(restTemplate.getForObject(anyString(), eq(CardInfoResponse.class)))
-                .thenThrow(new ResourceAccessException("Connection failed"));
+        when(binLookupService.findCountryCode("1234567890123456", RateLimiter.Priority.INTERACTIVE)).thenReturn("US");
+        CardCost cardCost = new CardCost(1L, "US", 5.0, 1L);
+        when(cardCostLookupTable.resolve("US")).thenReturn(cardCost);
 
-        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> {
-            cardCostService.getPaymentCardCost(request);
-        });
+        CardCost result = cardCostService.getPaymentCardCost(request);
 
-        assertEquals("Failed to connect to external API. Please try again later.", exception.getMessage());
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(CardInfoResponse.class));
-        verify(cardCostRepository, never()).findByCountry(anyString());
+        assertNotNull(result);
+        assertEquals("US", result.getCountry());
+        assertEquals(5.0, result.getCost());
+        verify(cardCostLookupTable, times(1)).resolve("US");
+        verifyNoInteractions(cardCostRepository);
     }
 
     @Test
-    void testGetPaymentCardCost_BadRequestExceptionForInvalidCountryCode() {
+    void getPaymentCardCostExternalApiException() {
         PaymentCardCostRequest request = new PaymentCardCostRequest();
         request.setCardNumber("1234567890123456");
 
-        CardInfoResponse cardInfoResponse = new CardInfoResponse();
-        CardInfoResponse.Country country = new CardInfoResponse.Country();
-        country.setAlpha2(null);
-        cardInfoResponse.setCountry(country);
+        when(binLookupService.findCountryCode("1234567890123456", RateLimiter.Priority.INTERACTIVE))
+                .thenThrow(new ExternalApiException("Failed to connect to external API. Please try again later."));
 
-        when(restTemplate.getForObject(anyString(), eq(CardInfoResponse.class))).thenReturn(cardInfoResponse);
-        BadRequestException exception = assertThrows(BadRequestException.class, () -> {
+        ExternalApiException exception = assertThrows(ExternalApiException.class, () -> {
             cardCostService.getPaymentCardCost(request);
         });
 
-        assertEquals("Country code is null or empty. Cause card_number is invalid.", exception.getMessage());
-
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(CardInfoResponse.class));
-        verify(cardCostRepository, never()).findByCountry(anyString());
+        assertEquals("Failed to connect to external API. Please try again later.", exception.getMessage());
+        verify(cardCostLookupTable, never()).resolve(anyString());
     }
 
     @Test
@@ -266,14 +374,8 @@ class CardCostServiceTest {
         PaymentCardCostRequest request = new PaymentCardCostRequest();
         request.setCardNumber("1234567890123456");
 
-        CardInfoResponse cardInfoResponse = new CardInfoResponse();
-        CardInfoResponse.Country country = new CardInfoResponse.Country();
-        country.setAlpha2("US");
-        cardInfoResponse.setCountry(country);
-
-        when(restTemplate.getForObject(anyString(), eq(CardInfoResponse.class))).thenReturn(cardInfoResponse);
-        when(cardCostRepository.findByCountry("US")).thenReturn(Optional.empty());
-        when(cardCostRepository.findByCountry("Other")).thenReturn(Optional.empty());
+        when(binLookupService.findCountryCode("1234567890123456", RateLimiter.Priority.INTERACTIVE)).thenReturn("US");
+        when(cardCostLookupTable.resolve("US")).thenReturn(null);
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             cardCostService.getPaymentCardCost(request);
@@ -281,8 +383,7 @@ class CardCostServiceTest {
 
         assertEquals("Card Cost with country: US do not exists!", exception.getMessage());
 
-        verify(restTemplate, times(1)).getForObject(anyString(), eq(CardInfoResponse.class));
-        verify(cardCostRepository, times(1)).findByCountry("US");
-        verify(cardCostRepository, times(1)).findByCountry("OTHERS");
+        verify(cardCostLookupTable, times(1)).resolve("US");
+        verifyNoInteractions(cardCostRepository);
     }
-}
\ No newline at end of file
+}
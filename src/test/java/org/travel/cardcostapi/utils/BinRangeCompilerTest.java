@@ -0,0 +1,53 @@
+package org.travel.cardcostapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinRangeCompilerTest {
+
+    @Test
+    void compileSortsRanges() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        int rangeCount = BinRangeCompiler.compile(reader("411111,411111,gr\n400000,400099,US\n"), output, 6);
+
+        ByteBuffer buffer = ByteBuffer.wrap(output.toByteArray());
+        assertEquals(2, rangeCount);
+        assertEquals(6, buffer.getInt(8));
+        assertEquals(2, buffer.getInt(12));
+        // countries GR, US then range count and the sorted starts
+        assertEquals(2, buffer.getInt(20));
+        assertEquals(400000, buffer.getInt(24));
+        assertEquals(411111, buffer.getInt(28));
+    }
+
+    @Test
+    void compileRejectsOverlappingRanges() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
+                BinRangeCompiler.compile(reader("400000,400099,US\n400050,400150,GR\n"), new ByteArrayOutputStream(), 6));
+
+        assertEquals("Line 2: range overlaps line 1", exception.getMessage());
+    }
+
+    @Test
+    void compileRejectsInvalidLines() {
+        assertThrows(IllegalArgumentException.class, () ->
+                BinRangeCompiler.compile(reader("400099,400000,US\n"), new ByteArrayOutputStream(), 6));
+        assertThrows(IllegalArgumentException.class, () ->
+                BinRangeCompiler.compile(reader("400000,400099,USA\n"), new ByteArrayOutputStream(), 6));
+        assertThrows(IllegalArgumentException.class, () ->
+                BinRangeCompiler.compile(reader("4000001,4000002,US\n"), new ByteArrayOutputStream(), 6));
+        assertThrows(IllegalArgumentException.class, () ->
+                BinRangeCompiler.compile(reader("400000,US\n"), new ByteArrayOutputStream(), 6));
+    }
+
+    private BufferedReader reader(String csv) {
+        return new BufferedReader(new StringReader(csv));
+    }
+}
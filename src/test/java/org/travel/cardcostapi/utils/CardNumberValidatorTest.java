@@ -0,0 +1,59 @@
+package org.travel.cardcostapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberValidatorTest {
+
+    @Test
+    void acceptsValidNumbersOfKnownSchemes() {
+        assertNull(CardNumberValidator.check("4111111111111111"));     //Visa 16
+        assertNull(CardNumberValidator.check("4222222222222"));        //Visa 13
+        assertNull(CardNumberValidator.check("5500000000000004"));     //Mastercard
+        assertNull(CardNumberValidator.check("2221000000000009"));     //Mastercard 2-series
+        assertNull(CardNumberValidator.check("378282246310005"));      //American Express
+        assertNull(CardNumberValidator.check("6011111111111117"));     //Discover
+        assertNull(CardNumberValidator.check("3530111333300000"));     //JCB
+        assertNull(CardNumberValidator.check("36227206271667"));       //Diners Club
+    }
+
+    @Test
+    void acceptsLuhnValidNumbersOutsideKnownRanges() {
+        assertNull(CardNumberValidator.check("9000000000000001"));
+        assertNull(CardNumberValidator.check("12345674"));
+    }
+
+    @Test
+    void rejectsEmptyAndLength() {
+        assertEquals(CardNumberValidator.Rejection.EMPTY, CardNumberValidator.check(null));
+        assertEquals(CardNumberValidator.Rejection.EMPTY, CardNumberValidator.check("   "));
+        assertEquals(CardNumberValidator.Rejection.LENGTH, CardNumberValidator.check("4111111"));
+        assertEquals(CardNumberValidator.Rejection.LENGTH, CardNumberValidator.check("41111111111111111111"));
+    }
+
+    @Test
+    void rejectsNonDigits() {
+        assertEquals(CardNumberValidator.Rejection.NON_DIGIT, CardNumberValidator.check("abcdefghij"));
+        assertEquals(CardNumberValidator.Rejection.NON_DIGIT, CardNumberValidator.check("4111 1111 1111 1111"));
+        assertEquals(CardNumberValidator.Rejection.NON_DIGIT, CardNumberValidator.check("4111-111111111111"));
+    }
+
+    @Test
+    void rejectsFailedChecksum() {
+        assertEquals(CardNumberValidator.Rejection.LUHN, CardNumberValidator.check("4111111111111112"));
+        assertEquals(CardNumberValidator.Rejection.LUHN, CardNumberValidator.check("1234567890123456"));
+    }
+
+    @Test
+    void rejectsLengthNotIssuedByTheScheme() {
+        //Luhn valid, but American Express numbers have 15 digits and Visa numbers 13, 16 or 19
+        assertEquals(CardNumberValidator.Rejection.SCHEME_LENGTH, CardNumberValidator.check("3782822463100003"));
+        assertEquals(CardNumberValidator.Rejection.SCHEME_LENGTH, CardNumberValidator.check("41111111111114"));
+    }
+
+    @Test
+    void checksCharSequences() {
+        assertNull(CardNumberValidator.check(new StringBuilder("4111111111111111")));
+    }
+}
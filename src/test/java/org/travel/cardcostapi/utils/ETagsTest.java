@@ -0,0 +1,47 @@
+package org.travel.cardcostapi.utils;
+
+import org.junit.jupiter.api.Test;
+import org.travel.cardcostapi.models.CardCost;
+import org.travel.cardcostapi.models.CardCostVersion;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void cardCostETagIsItsVersion() {
+        assertEquals("\"4\"", ETags.of(new CardCost(1L, "US", 5.0, 4L)));
+        assertEquals("\"0\"", ETags.of(new CardCost("US", 5.0)));
+    }
+
+    @Test
+    void listETagMatchesVersionsInAnyOrder() {
+        List<CardCost> cardCosts = List.of(new CardCost(1L, "US", 5.0, 0L), new CardCost(2L, "GR", 15.0, 3L));
+
+        assertEquals(ETags.ofCardCosts(cardCosts), ETags.ofVersions(List.of(new CardCostVersion(2L, 3L), new CardCostVersion(1L, 0L))));
+    }
+
+    @Test
+    void listETagChangesWithAnyRow() {
+        String eTag = ETags.ofVersions(List.of(new CardCostVersion(1L, 0L), new CardCostVersion(2L, 3L)));
+
+        assertNotEquals(eTag, ETags.ofVersions(List.of(new CardCostVersion(1L, 1L), new CardCostVersion(2L, 3L))));
+        assertNotEquals(eTag, ETags.ofVersions(List.of(new CardCostVersion(1L, 0L))));
+        assertNotEquals(eTag, ETags.ofVersions(List.of(new CardCostVersion(1L, 0L), new CardCostVersion(3L, 3L))));
+        assertNotEquals(eTag, ETags.ofVersions(List.of(new CardCostVersion(1L, 3L), new CardCostVersion(2L, 0L))));
+        assertNotEquals(eTag, ETags.ofVersions(List.of()));
+    }
+
+    @Test
+    void matches() {
+        assertTrue(ETags.matches("\"3\"", "\"3\"", false));
+        assertTrue(ETags.matches("\"1\", \"3\"", "\"3\"", false));
+        assertTrue(ETags.matches("*", "\"3\"", false));
+        assertTrue(ETags.matches("W/\"3\"", "\"3\"", true));
+        assertFalse(ETags.matches("W/\"3\"", "\"3\"", false));
+        assertFalse(ETags.matches("\"2\"", "\"3\"", true));
+        assertFalse(ETags.matches(null, "\"3\"", true));
+    }
+}
@@ -0,0 +1,99 @@
+package org.travel.cardcostapi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    @Test
+    void concurrentCallsShareResult() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("411111", () -> {
+                    invocations.incrementAndGet();
+                    await(release);
+                    return "US";
+                })));
+            }
+            waitUntil(() -> singleFlight.coalescedCount() == CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("US", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, invocations.get());
+        assertEquals(1, singleFlight.executedCount());
+        assertEquals(CALLERS - 1, singleFlight.coalescedCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void concurrentCallsShareFailure() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("411111", () -> {
+            await(release);
+            throw failure;
+        }));
+        waitUntil(() -> singleFlight.inFlightCount() == 1);
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("411111", () -> "never called"));
+        waitUntil(() -> singleFlight.coalescedCount() == 1);
+        release.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertSame(failure, followerError.getCause());
+    }
+
+    @Test
+    void sequentialCallsAreNotCoalesced() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        assertEquals("US", singleFlight.execute("411111", () -> "US"));
+        assertEquals("GR", singleFlight.execute("411111", () -> "GR"));
+        assertEquals(2, singleFlight.executedCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -23,4 +23,14 @@ class UtilsTest {
         String result = Utils.getMaskedCardNumber(cardNumber);
         assertEquals(testResult, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getExecutionTimeIsMonotonicMillis() throws InterruptedException {
+        long startTime = Utils.getStartTime();
+        Thread.sleep(5);
+
+        double executionTime = Utils.getExecutionTime(startTime);
+        assertTrue(executionTime >= 5.0);
+        assertTrue(executionTime < 5_000.0);
+    }
+}